@@ -23,15 +23,55 @@ public class BlockchainConfig {
     private Long chainId = 31337L;
 
     /**
-     * Maximum block range to scan for events in one request
+     * WebSocket RPC URL for the log subscription (transport websocket)
+     */
+    private String wsUrl = "ws://127.0.0.1:8545";
+
+    /**
+     * How the listener learns about new votes: polling (eth_getLogs every pollingInterval) or
+     * websocket (eth_subscribe to VoteCast logs, each pushed log triggers an immediate read)
+     */
+    private String transport = "polling";
+
+    /**
+     * Subscription drops within five minutes tolerated before the listener falls back to polling
+     */
+    private Integer maxReconnects = 5;
+
+    /**
+     * Maximum block range to scan for events in one eth_getLogs request.
+     * Halved while the node rejects responses as too large, and grown back afterwards.
      */
     private Integer maxBlockRange = 1000;
 
     /**
-     * Event listener polling interval in milliseconds
+     * Concurrent eth_getLogs requests while the listener backfills history more than two block
+     * ranges behind the head
+     */
+    private Integer backfillConcurrency = 8;
+
+    /**
+     * Event listener polling interval in milliseconds while new blocks carry no votes.
+     * When no new blocks arrive the interval doubles up to maxPollingInterval.
      */
     private Long pollingInterval = 5000L;
 
+    /**
+     * Polling interval in milliseconds while new blocks carry votes
+     */
+    private Long minPollingInterval = 500L;
+
+    /**
+     * Upper bound in milliseconds of the polling interval while the chain is idle
+     */
+    private Long maxPollingInterval = 30000L;
+
+    /**
+     * Blocks a block must be buried under before the listener processes it (0 on a local
+     * network, e.g. 12 on a public one). Reorgs deeper than this are rolled back.
+     */
+    private Integer confirmations = 0;
+
     /**
      * Whether to enable blockchain event listening
      */
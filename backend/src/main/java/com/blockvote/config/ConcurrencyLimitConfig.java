@@ -0,0 +1,72 @@
+package com.blockvote.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration properties for the adaptive concurrency limits on the REST endpoints
+ */
+@Component
+@ConfigurationProperties(prefix = "concurrency-limit")
+@Data
+public class ConcurrencyLimitConfig {
+
+    /**
+     * Whether requests are admitted through the concurrency limits at all
+     */
+    private Boolean enabled = true;
+
+    /**
+     * Limits for /voter endpoints
+     */
+    private Group voter = new Group(50, 10, 400);
+
+    /**
+     * Limits for /admin endpoints
+     */
+    private Group admin = new Group(20, 4, 100);
+
+    /**
+     * Limits for /auth endpoints
+     */
+    private Group auth = new Group(30, 5, 200);
+
+    @Data
+    public static class Group {
+
+        /**
+         * Whether this endpoint group is limited
+         */
+        private Boolean enabled = true;
+
+        /**
+         * Concurrency limit before any latency has been observed
+         */
+        private Integer initialLimit;
+
+        /**
+         * Lower bound of the adaptive limit
+         */
+        private Integer minLimit;
+
+        /**
+         * Upper bound of the adaptive limit
+         */
+        private Integer maxLimit;
+
+        /**
+         * Retry-After value in seconds sent with 429 responses
+         */
+        private Integer retryAfterSeconds = 1;
+
+        public Group() {
+        }
+
+        public Group(int initialLimit, int minLimit, int maxLimit) {
+            this.initialLimit = initialLimit;
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.blockvote.config;
+
+import com.blockvote.dto.ApiResponse;
+import com.blockvote.util.AdaptiveConcurrencyLimit;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Admits REST requests through an adaptive concurrency limit per endpoint group
+ * (voter, admin, auth). Requests over the limit are answered at once with
+ * 429 Too Many Requests and a Retry-After header instead of waiting for a worker thread.
+ * Runs after the CORS filter so a browser can read the rejection and its Retry-After.
+ */
+@Component
+@Order(CorsConfig.ORDER + 1)
+@Slf4j
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private final ConcurrencyLimitConfig config;
+    private final ObjectMapper objectMapper;
+    private final Map<String, AdaptiveConcurrencyLimit> limits = new LinkedHashMap<>();
+
+    public ConcurrencyLimitFilter(ConcurrencyLimitConfig config, ObjectMapper objectMapper) {
+        this.config = config;
+        this.objectMapper = objectMapper;
+        register("voter", config.getVoter());
+        register("admin", config.getAdmin());
+        register("auth", config.getAuth());
+    }
+
+    private void register(String group, ConcurrencyLimitConfig.Group settings) {
+        if (settings.getEnabled()) {
+            limits.put(group, new AdaptiveConcurrencyLimit(
+                    settings.getInitialLimit(), settings.getMinLimit(), settings.getMaxLimit()));
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !config.getEnabled() || "OPTIONS".equals(request.getMethod()) || groupOf(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String group = groupOf(request);
+        AdaptiveConcurrencyLimit limit = limits.get(group);
+
+        long started = limit.tryAcquire();
+        if (started < 0) {
+            reject(response, group);
+            return;
+        }
+
+        boolean failed = true;
+        try {
+            chain.doFilter(request, response);
+            // 429 from downstream rate limits and 503 from a saturated ingestion stage are overload too
+            int status = response.getStatus();
+            failed = status >= 500 || status == HttpStatus.TOO_MANY_REQUESTS.value();
+        } finally {
+            limit.release(started, failed);
+        }
+    }
+
+    private void reject(HttpServletResponse response, String group) throws IOException {
+        ConcurrencyLimitConfig.Group settings = switch (group) {
+            case "admin" -> config.getAdmin();
+            case "auth" -> config.getAuth();
+            default -> config.getVoter();
+        };
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(settings.getRetryAfterSeconds()));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(),
+                new ApiResponse(false, "Server is busy. Please try again shortly."));
+    }
+
+    // Endpoint group from the first path segment, or null for unlimited paths
+    private String groupOf(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        int end = path.indexOf('/', 1);
+        String group = end < 0 ? path.substring(1) : path.substring(1, end);
+        return limits.containsKey(group) ? group : null;
+    }
+
+    /**
+     * Current limit, in-flight count and counters per endpoint group
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        limits.forEach((group, limit) -> {
+            Map<String, Object> groupStats = new LinkedHashMap<>();
+            groupStats.put("limit", limit.getLimit());
+            groupStats.put("inFlight", limit.getInFlight());
+            groupStats.put("accepted", limit.getAccepted());
+            groupStats.put("rejected", limit.getRejected());
+            groupStats.put("failed", limit.getDropped());
+            groupStats.put("minLatencyMicros", limit.getMinRttMicros());
+            groupStats.put("lastLatencyMicros", limit.getLastRttMicros());
+            stats.put(group, groupStats);
+        });
+        return stats;
+    }
+}
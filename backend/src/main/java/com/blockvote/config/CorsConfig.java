@@ -2,6 +2,8 @@ package com.blockvote.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import org.springframework.web.filter.CorsFilter;
@@ -12,7 +14,11 @@ import java.util.List;
 @Configuration
 public class CorsConfig {
 
+    // Right after Spring's character encoding filter, ahead of filters that answer on their own
+    public static final int ORDER = Ordered.HIGHEST_PRECEDENCE + 1;
+
     @Bean
+    @Order(ORDER)
     public CorsFilter corsFilter() {
         CorsConfiguration config = new CorsConfiguration();
         config.setAllowCredentials(true);
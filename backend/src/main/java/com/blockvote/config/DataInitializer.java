@@ -4,6 +4,7 @@ import com.blockvote.entity.User;
 import com.blockvote.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -11,9 +12,15 @@ import org.springframework.stereotype.Component;
 public class DataInitializer implements CommandLineRunner {
 
     private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
 
     @Override
     public void run(String... args) {
+        alignVoteSequence();
+        runOnce("voting-status", this::migrateVotingStatus);
+        runOnce("vote-elections", this::backfillVoteElections);
+        runOnce("vote-rounds", this::backfillVoteRounds);
+
         // Only initialize if admin doesn't exist (preserve existing users)
         if (userRepository.findByMobileNumber("9999999999").isEmpty()) {
             // Create Admin User only
@@ -23,7 +30,6 @@ public class DataInitializer implements CommandLineRunner {
             admin.setWalletAddress(null); // Will be set manually in database
             admin.setRegisteredWalletAddress(null); // Will be set manually in database
             admin.setWalletVerified(false); // Will be set manually in database
-            admin.setHasVoted(false);
             userRepository.save(admin);
             
             System.out.println("========================================");
@@ -39,4 +45,76 @@ public class DataInitializer implements CommandLineRunner {
 
         System.out.println("Voters can register using /register page");
     }
+
+    // Vote ids used to come from an identity column - move the pooled sequence past existing rows
+    private void alignVoteSequence() {
+        try {
+            jdbcTemplate.queryForObject(
+                    "SELECT setval('votes_seq', GREATEST((SELECT last_value FROM votes_seq), " +
+                            "(SELECT COALESCE(MAX(id), 0) + 50 FROM votes)))",
+                    Long.class);
+        } catch (Exception e) {
+            System.out.println("Could not align votes_seq: " + e.getMessage());
+        }
+    }
+
+    // Data migrations run once per database; data_migrations records the ones that completed
+    private void runOnce(String name, Runnable migration) {
+        try {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS data_migrations " +
+                    "(name VARCHAR(100) PRIMARY KEY, applied_at TIMESTAMP NOT NULL)");
+            Integer applied = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM data_migrations WHERE name = ?", Integer.class, name);
+            if (applied != null && applied > 0) {
+                return;
+            }
+            migration.run();
+            jdbcTemplate.update("INSERT INTO data_migrations (name, applied_at) VALUES (?, CURRENT_TIMESTAMP)", name);
+        } catch (Exception e) {
+            System.out.println("Could not run data migration " + name + ": " + e.getMessage());
+        }
+    }
+
+    // Voting status used to be a has_voted flag on users, reset for every election. Carry the
+    // flags over to the latest election. The column is kept for the record; it only gets a
+    // default, since users are no longer inserted with a value for it.
+    private void migrateVotingStatus() {
+        Integer legacy = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.columns " +
+                        "WHERE table_name = 'users' AND column_name = 'has_voted'",
+                Integer.class);
+        if (legacy == null || legacy == 0) {
+            return;
+        }
+        int migrated = jdbcTemplate.update(
+                "INSERT INTO election_voters (election_id, user_id, voting_round) " +
+                        "SELECT e.id, u.id, COALESCE(e.voting_round, 0) FROM users u, " +
+                        "(SELECT id, voting_round FROM elections ORDER BY created_at DESC LIMIT 1) e " +
+                        "WHERE u.has_voted = true ON CONFLICT (election_id, user_id) DO NOTHING");
+        jdbcTemplate.execute("ALTER TABLE users ALTER COLUMN has_voted SET DEFAULT false");
+        System.out.println("Migrated " + migrated + " voting statuses to election_voters");
+    }
+
+    // Votes used to reach their election through the candidate only
+    private void backfillVoteElections() {
+        int updated = jdbcTemplate.update("UPDATE votes v SET election_id = c.election_id FROM candidates c " +
+                "WHERE c.id = v.candidate_id AND v.election_id IS NULL");
+        if (updated > 0) {
+            System.out.println("Backfilled the election of " + updated + " votes");
+        }
+    }
+
+    // Votes whose candidate still exists belong to the election's current round. The candidates
+    // of earlier rounds were deleted by the reset that ended them, and nothing records which
+    // round that was, so those votes are all put in the round before the current one. Every
+    // reader only compares a vote's round with the current round, which this keeps right; the
+    // exact round of votes older than that is not recoverable.
+    private void backfillVoteRounds() {
+        int updated = jdbcTemplate.update("UPDATE votes v SET voting_round = COALESCE(e.voting_round, 0) - " +
+                "CASE WHEN EXISTS (SELECT 1 FROM candidates c WHERE c.id = v.candidate_id) THEN 0 ELSE 1 END " +
+                "FROM elections e WHERE e.id = v.election_id AND v.voting_round IS NULL");
+        if (updated > 0) {
+            System.out.println("Backfilled the voting round of " + updated + " votes");
+        }
+    }
 }
@@ -0,0 +1,148 @@
+package com.blockvote.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration properties for the vote recording path
+ */
+@Component
+@ConfigurationProperties(prefix = "voting")
+@Data
+public class VotingConfig {
+
+    /**
+     * Number of counter slots per candidate and per election.
+     * More slots spread concurrent increments over more rows.
+     */
+    private Integer counterShards = 16;
+
+    /**
+     * Whether accepted votes are committed in group transactions by the ingestion stage.
+     * When disabled every vote is committed on the request thread.
+     */
+    private Boolean ingestionEnabled = true;
+
+    /**
+     * Maximum number of votes committed in one group transaction
+     */
+    private Integer ingestionBatchSize = 500;
+
+    /**
+     * Maximum time in milliseconds a vote waits for its group to fill up
+     */
+    private Long ingestionLingerMs = 5L;
+
+    /**
+     * Capacity of the queue of votes waiting to be committed
+     */
+    private Integer ingestionQueueCapacity = 10000;
+
+    /**
+     * Number of ingestion lanes; each election is committed by one lane's writer, so
+     * elections on different lanes never wait for each other. Capacity applies per lane.
+     */
+    private Integer ingestionLanes = 4;
+
+    /**
+     * How long a request waits for its vote to be committed, in milliseconds
+     */
+    private Long ingestionTimeoutMs = 10000L;
+
+    /**
+     * Return 202 Accepted with a receipt as soon as a vote is validated and durably accepted,
+     * instead of waiting for the response to carry the saved vote. With the journal enabled a
+     * vote is accepted once it is journaled; without it, once it has committed.
+     */
+    private Boolean asyncAcceptance = false;
+
+    /**
+     * Maximum number of vote receipts kept for status polling
+     */
+    private Integer receiptCapacity = 100000;
+
+    /**
+     * Interval between simulated blocks that confirm pending vote transactions, in milliseconds
+     */
+    private Long simulatedBlockIntervalMs = 2000L;
+
+    /**
+     * Maximum number of simulated vote confirmations waiting for a block
+     */
+    private Integer simulatedMaxPendingConfirmations = 10000;
+
+    /**
+     * Whether admitted votes are appended to the local hash-chained journal before they are committed
+     */
+    private Boolean journalEnabled = false;
+
+    /**
+     * Directory holding the journal segment files
+     */
+    private String journalDirectory = "data/journal";
+
+    /**
+     * Number of records per journal segment file
+     */
+    private Integer journalSegmentRecords = 262144;
+
+    /**
+     * Flush the journal to disk before a group of votes commits and before an accepted vote is
+     * acknowledged. Concurrent flushes are merged, so accepts do not each wait for their own.
+     */
+    private Boolean journalFsync = true;
+
+    /**
+     * What the startup replay does with journaled votes missing from the votes table:
+     * VERIFY only reports them, REBUILD inserts those of their election's current round again
+     */
+    private String journalReplay = "VERIFY";
+
+    /**
+     * Maximum number of Idempotency-Key responses kept in memory
+     */
+    private Integer idempotencyCapacity = 100000;
+
+    /**
+     * How long a vote response is replayed for its Idempotency-Key, in milliseconds
+     */
+    private Long idempotencyTtlMs = 86400000L;
+
+    /**
+     * Also store Idempotency-Key responses in the idempotency_keys table
+     */
+    private Boolean idempotencyPersistent = false;
+
+    /**
+     * Interval between reloads of the live results view from the vote counters, in milliseconds
+     */
+    private Long resultsReconcileIntervalMs = 60000L;
+
+    /**
+     * Minimum interval between live results pushes to /topic/results/{electionId} and SSE clients,
+     * in milliseconds. Votes arriving in between are coalesced into one delta.
+     */
+    private Long resultsPushIntervalMs = 500L;
+
+    /**
+     * How long a live results SSE stream stays open, in milliseconds
+     */
+    private Long resultsSseTimeoutMs = 1800000L;
+
+    /**
+     * Key of the proof tokens handed out with each vote; an inclusion proof is only served with
+     * its vote's token. When empty a random key is used, so tokens do not survive a restart.
+     */
+    private String proofSecret = "";
+
+    /**
+     * Vote id range scanned by one recount task
+     */
+    private Long recountChunkSize = 100000L;
+
+    /**
+     * Number of recount tasks running in parallel; each holds a database connection
+     */
+    private Integer recountParallelism = 4;
+}
@@ -1,16 +1,26 @@
 package com.blockvote.controller;
 
+import com.blockvote.config.ConcurrencyLimitFilter;
 import com.blockvote.dto.ApiResponse;
 import com.blockvote.dto.CandidateRequest;
 import com.blockvote.dto.ElectionRequest;
 import com.blockvote.entity.Candidate;
 import com.blockvote.entity.Election;
 import com.blockvote.service.AdminService;
+import com.blockvote.service.ArchiveService;
+import com.blockvote.service.BlockchainEventListenerService;
+import com.blockvote.service.ElectionResultsService;
+import com.blockvote.service.LiveResults;
+import com.blockvote.service.RecountService;
+import com.blockvote.service.VoteExportService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.Map;
 
 @RestController
 @RequestMapping("/admin")
@@ -18,6 +28,11 @@ import java.util.Map;
 public class AdminController {
 
     private final AdminService adminService;
+    private final ArchiveService archiveService;
+    private final VoteExportService voteExportService;
+    private final RecountService recountService;
+    private final BlockchainEventListenerService blockchainEventListenerService;
+    private final ConcurrencyLimitFilter concurrencyLimitFilter;
 
     @PostMapping("/create-election")
     public ResponseEntity<ApiResponse> createElection(@RequestBody ElectionRequest request) {
@@ -41,10 +56,21 @@ public class AdminController {
         }
     }
 
+    @GetMapping("/elections")
+    public ResponseEntity<ApiResponse> getOpenElections() {
+        try {
+            return ResponseEntity.ok(new ApiResponse(true, "Open elections fetched",
+                    adminService.getOpenElections()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(new ApiResponse(false, e.getMessage()));
+        }
+    }
+
     @PostMapping("/start-election")
-    public ResponseEntity<ApiResponse> startElection() {
+    public ResponseEntity<ApiResponse> startElection(@RequestParam(required = false) Long electionId) {
         try {
-            Election election = adminService.startElection();
+            Election election = adminService.startElection(electionId);
             return ResponseEntity.ok(new ApiResponse(true, "Election started successfully", election));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
@@ -53,9 +79,9 @@ public class AdminController {
     }
 
     @PostMapping("/stop-election")
-    public ResponseEntity<ApiResponse> stopElection() {
+    public ResponseEntity<ApiResponse> stopElection(@RequestParam(required = false) Long electionId) {
         try {
-            Election election = adminService.stopElection();
+            Election election = adminService.stopElection(electionId);
             return ResponseEntity.ok(new ApiResponse(true, "Election stopped successfully", election));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
@@ -64,10 +90,18 @@ public class AdminController {
     }
 
     @GetMapping("/results")
-    public ResponseEntity<ApiResponse> getResults() {
+    public ResponseEntity<?> getResults(@RequestParam(required = false) Long electionId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
-            Map<String, Object> results = adminService.getResults();
-            return ResponseEntity.ok(new ApiResponse(true, "Results fetched successfully", results));
+            // Pre-serialized snapshot; unchanged results cost a 304
+            LiveResults results = adminService.getResults(electionId);
+            if (results.etag().equals(ifNoneMatch)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(results.etag()).build();
+            }
+            return ResponseEntity.ok()
+                    .eTag(results.etag())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(results.json());
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                     .body(new ApiResponse(false, e.getMessage()));
@@ -75,9 +109,9 @@ public class AdminController {
     }
 
     @GetMapping("/election-status")
-    public ResponseEntity<ApiResponse> getElectionStatus() {
+    public ResponseEntity<ApiResponse> getElectionStatus(@RequestParam(required = false) Long electionId) {
         try {
-            Election election = adminService.getElectionStatus();
+            Election election = adminService.getElectionStatus(electionId);
             return ResponseEntity.ok(new ApiResponse(true, "Election status fetched", election));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
@@ -86,9 +120,9 @@ public class AdminController {
     }
 
     @GetMapping("/candidates")
-    public ResponseEntity<ApiResponse> getCurrentCandidates() {
+    public ResponseEntity<ApiResponse> getCurrentCandidates(@RequestParam(required = false) Long electionId) {
         try {
-            var candidates = adminService.getCandidatesForCurrentElection();
+            var candidates = adminService.getCandidatesForElection(electionId);
             return ResponseEntity.ok(new ApiResponse(true, "Current election candidates fetched", candidates));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
@@ -97,9 +131,9 @@ public class AdminController {
     }
 
     @PostMapping("/reset-election")
-    public ResponseEntity<ApiResponse> resetElection() {
+    public ResponseEntity<ApiResponse> resetElection(@RequestParam(required = false) Long electionId) {
         try {
-            adminService.resetElection();
+            adminService.resetElection(electionId);
             return ResponseEntity
                     .ok(new ApiResponse(true, "Election reset successfully - ready to add new candidates"));
         } catch (Exception e) {
@@ -108,12 +142,110 @@ public class AdminController {
         }
     }
 
+    @GetMapping("/simulated-chain/stats")
+    public ResponseEntity<ApiResponse> getSimulatedChainStats() {
+        try {
+            return ResponseEntity.ok(new ApiResponse(true, "Simulated chain statistics fetched",
+                    adminService.getSimulatedChainStats()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(new ApiResponse(false, e.getMessage()));
+        }
+    }
+
+    @GetMapping("/blockchain/listener")
+    public ResponseEntity<ApiResponse> getListenerStats() {
+        try {
+            return ResponseEntity.ok(new ApiResponse(true, "Blockchain listener statistics fetched",
+                    blockchainEventListenerService.getStats()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(new ApiResponse(false, e.getMessage()));
+        }
+    }
+
+    @PostMapping("/blockchain/backfill")
+    public ResponseEntity<ApiResponse> backfill(@RequestParam Long fromBlock) {
+        try {
+            blockchainEventListenerService.requestBackfill(fromBlock);
+            return ResponseEntity.ok(new ApiResponse(true, "Backfill from block " + fromBlock + " started"));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(new ApiResponse(false, e.getMessage()));
+        }
+    }
+
+    @GetMapping("/concurrency-limits")
+    public ResponseEntity<ApiResponse> getConcurrencyLimits() {
+        try {
+            return ResponseEntity.ok(new ApiResponse(true, "Concurrency limits fetched",
+                    concurrencyLimitFilter.getStats()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(new ApiResponse(false, e.getMessage()));
+        }
+    }
+
+    @GetMapping("/elections/{id}/timeline")
+    public ResponseEntity<ApiResponse> getTimeline(@PathVariable Long id,
+            @RequestParam(defaultValue = "MINUTE") String resolution) {
+        try {
+            return ResponseEntity.ok(new ApiResponse(true, "Turnout timeline fetched",
+                    adminService.getTimeline(id, resolution)));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(new ApiResponse(false, e.getMessage()));
+        }
+    }
+
+    @PostMapping("/elections/{id}/recount")
+    public ResponseEntity<ApiResponse> startRecount(@PathVariable Long id) {
+        try {
+            return ResponseEntity.accepted().body(new ApiResponse(true, "Recount started",
+                    recountService.start(id)));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(new ApiResponse(false, e.getMessage()));
+        }
+    }
+
+    @GetMapping("/recount")
+    public ResponseEntity<ApiResponse> getRecountStatus() {
+        RecountService.RecountStatus status = recountService.getStatus();
+        return ResponseEntity.ok(new ApiResponse(true,
+                status == null ? "No recount has been started" : "Recount status fetched", status));
+    }
+
+    @GetMapping("/elections/{id}/votes/export")
+    public ResponseEntity<?> exportVotes(@PathVariable Long id, @RequestParam(defaultValue = "CSV") String format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        try {
+            VoteExportService.Format exportFormat = VoteExportService.parseFormat(format);
+            voteExportService.getElection(id);
+
+            String filename = "election-" + id + "-votes." + exportFormat.getExtension() + (gzip ? ".gz" : "");
+            StreamingResponseBody body = out -> voteExportService.export(id, exportFormat, gzip, out);
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                    .contentType(MediaType.parseMediaType(gzip ? "application/gzip" : exportFormat.getContentType()))
+                    .body(body);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(new ApiResponse(false, e.getMessage()));
+        }
+    }
+
     // Archive endpoints
     @GetMapping("/archive")
-    public ResponseEntity<ApiResponse> getArchivedElections() {
+    public ResponseEntity<?> getArchivedElections(@RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
         try {
-            return ResponseEntity.ok(new ApiResponse(true, "Archived elections retrieved successfully", 
-                    adminService.getArchivedElections()));
+            // Page is fetched up front so errors still map to 400; rows are written as they are serialized
+            ArchiveService.ArchivePage page = archiveService.getPage(cursor, limit);
+            StreamingResponseBody body = out -> archiveService.writePage(page, out);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(body);
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                     .body(new ApiResponse(false, e.getMessage()));
@@ -132,10 +264,18 @@ public class AdminController {
     }
 
     @GetMapping("/archive/{id}/statistics")
-    public ResponseEntity<ApiResponse> getElectionStatistics(@PathVariable Long id) {
+    public ResponseEntity<?> getElectionStatistics(@PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
-            return ResponseEntity.ok(new ApiResponse(true, "Election statistics retrieved successfully", 
-                    adminService.getElectionStatistics(id)));
+            // Sealed at stop time and never changes, so clients may cache it by ETag
+            ElectionResultsService.SealedResults statistics = adminService.getElectionStatistics(id);
+            if (statistics.etag().equals(ifNoneMatch)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(statistics.etag()).build();
+            }
+            return ResponseEntity.ok()
+                    .eTag(statistics.etag())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(statistics.body());
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                     .body(new ApiResponse(false, e.getMessage()));
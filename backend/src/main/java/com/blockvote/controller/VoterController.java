@@ -1,15 +1,26 @@
 package com.blockvote.controller;
 
+import com.blockvote.config.ConcurrencyLimitConfig;
+import com.blockvote.config.VotingConfig;
 import com.blockvote.dto.ApiResponse;
+import com.blockvote.dto.VoteReceipt;
 import com.blockvote.dto.VoteRequest;
 import com.blockvote.entity.Candidate;
 import com.blockvote.entity.Vote;
+import com.blockvote.service.IdempotencyService;
+import com.blockvote.service.MerkleService;
+import com.blockvote.service.ResultsStreamService;
+import com.blockvote.service.VoteIngestionService;
 import com.blockvote.service.VoterService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/voter")
@@ -17,11 +28,27 @@ import java.util.List;
 public class VoterController {
 
     private final VoterService voterService;
+    private final VotingConfig votingConfig;
+    private final IdempotencyService idempotencyService;
+    private final ResultsStreamService resultsStreamService;
+    private final MerkleService merkleService;
+    private final ConcurrencyLimitConfig concurrencyLimitConfig;
+
+    @GetMapping("/elections")
+    public ResponseEntity<ApiResponse> getActiveElections() {
+        try {
+            List<Map<String, Object>> elections = voterService.getActiveElections();
+            return ResponseEntity.ok(new ApiResponse(true, "Elections fetched successfully", elections));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(new ApiResponse(false, e.getMessage()));
+        }
+    }
 
     @GetMapping("/candidates")
-    public ResponseEntity<ApiResponse> getCandidates() {
+    public ResponseEntity<ApiResponse> getCandidates(@RequestParam(required = false) Long electionId) {
         try {
-            List<Candidate> candidates = voterService.getCandidates();
+            List<Candidate> candidates = voterService.getCandidates(electionId);
             return ResponseEntity.ok(new ApiResponse(true, "Candidates fetched successfully", candidates));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
@@ -30,10 +57,70 @@ public class VoterController {
     }
 
     @PostMapping("/vote")
-    public ResponseEntity<ApiResponse> castVote(@RequestBody VoteRequest request) {
+    public ResponseEntity<ApiResponse> castVote(@RequestBody VoteRequest request,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        try {
+            // A retry with the same key gets the original response without voting again
+            String fingerprint = request.getElectionId() + ":" + request.getCandidateId() + ":"
+                    + request.getWalletAddress();
+            return idempotencyService.execute(idempotencyKey, request.getMobileNumber(), fingerprint,
+                    () -> submitVote(request));
+        } catch (VoteIngestionService.OverloadedException e) {
+            // Not the voter's fault: 503 tells the client (and the concurrency limit) to back off
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER,
+                            String.valueOf(concurrencyLimitConfig.getVoter().getRetryAfterSeconds()))
+                    .body(new ApiResponse(false, e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(new ApiResponse(false, e.getMessage()));
+        }
+    }
+
+    private ResponseEntity<ApiResponse> submitVote(VoteRequest request) {
+        if (votingConfig.getAsyncAcceptance()) {
+            VoteReceipt receipt = voterService.acceptVote(request);
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(new ApiResponse(true, "Vote accepted", receipt));
+        }
+
+        Vote vote = voterService.castVote(request);
+        return ResponseEntity.ok(new ApiResponse(true, "Vote cast successfully", vote));
+    }
+
+    @GetMapping("/vote-status/{receiptId}")
+    public ResponseEntity<ApiResponse> getVoteStatus(@PathVariable String receiptId) {
+        try {
+            VoteReceipt receipt = voterService.getVoteStatus(receiptId);
+            return ResponseEntity.ok(new ApiResponse(true, "Vote status fetched", receipt));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(new ApiResponse(false, e.getMessage()));
+        }
+    }
+
+    /**
+     * Inclusion proof of a vote in its election's Merkle tree, for the holder of its proof token
+     */
+    @GetMapping("/receipt/{voteId}/proof")
+    public ResponseEntity<ApiResponse> getInclusionProof(@PathVariable Long voteId, @RequestParam String token) {
+        try {
+            return ResponseEntity.ok(new ApiResponse(true, "Inclusion proof fetched",
+                    merkleService.proof(voteId, token)));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(new ApiResponse(false, e.getMessage()));
+        }
+    }
+
+    /**
+     * Server-sent events with the live results: a snapshot first, then coalesced deltas
+     */
+    @GetMapping("/results/{electionId}/stream")
+    public ResponseEntity<?> streamResults(@PathVariable Long electionId) {
         try {
-            Vote vote = voterService.castVote(request);
-            return ResponseEntity.ok(new ApiResponse(true, "Vote cast successfully", vote));
+            SseEmitter emitter = resultsStreamService.subscribe(electionId);
+            return ResponseEntity.ok(emitter);
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                     .body(new ApiResponse(false, e.getMessage()));
@@ -41,9 +128,10 @@ public class VoterController {
     }
 
     @GetMapping("/has-voted/{mobileNumber}")
-    public ResponseEntity<ApiResponse> hasVoted(@PathVariable String mobileNumber) {
+    public ResponseEntity<ApiResponse> hasVoted(@PathVariable String mobileNumber,
+            @RequestParam(required = false) Long electionId) {
         try {
-            boolean hasVoted = voterService.hasVoted(mobileNumber);
+            boolean hasVoted = voterService.hasVoted(mobileNumber, electionId);
             return ResponseEntity.ok(new ApiResponse(true, "Vote status fetched", hasVoted));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
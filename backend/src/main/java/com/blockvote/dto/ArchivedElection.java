@@ -0,0 +1,19 @@
+package com.blockvote.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * One row of the archive listing, without results or candidates
+ */
+public record ArchivedElection(Long id, String title, LocalDateTime stoppedAt, Integer totalVotes, String winner,
+        Long candidateCount) {
+
+    // Used by the JPQL constructor expression; winner and candidate count are filled in per page
+    public ArchivedElection(Long id, String title, LocalDateTime stoppedAt, Integer totalVotes) {
+        this(id, title, stoppedAt, totalVotes, null, 0L);
+    }
+
+    public ArchivedElection withCandidates(String winner, long candidateCount) {
+        return new ArchivedElection(id, title, stoppedAt, totalVotes, winner, candidateCount);
+    }
+}
@@ -47,6 +47,11 @@ public class BlockchainVoteEvent {
      */
     private BigInteger logIndex;
 
+    /**
+     * Address of the contract that emitted the event
+     */
+    private String contractAddress;
+
     /**
      * Candidate name (populated from database)
      */
@@ -10,4 +10,6 @@ import lombok.NoArgsConstructor;
 public class CandidateRequest {
     private String name;
     private String party;
+    // Election to add the candidate to; the latest election in CREATED status when omitted
+    private Long electionId;
 }
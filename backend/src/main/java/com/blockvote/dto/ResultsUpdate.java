@@ -0,0 +1,40 @@
+package com.blockvote.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Live results message pushed to /topic/results/{electionId} and the results SSE stream
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultsUpdate {
+
+    public static final String SNAPSHOT = "SNAPSHOT";
+    public static final String DELTA = "DELTA";
+
+    /**
+     * SNAPSHOT (every candidate) or DELTA (only candidates whose count changed)
+     */
+    private String type;
+
+    private Long electionId;
+
+    private String electionStatus;
+
+    /**
+     * Version of the live results view this update brings the client to
+     */
+    private Long version;
+
+    /**
+     * Candidate id to its new vote count
+     */
+    private Map<Long, Long> voteCounts;
+
+    private Long totalVotes;
+}
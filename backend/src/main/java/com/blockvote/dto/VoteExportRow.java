@@ -0,0 +1,10 @@
+package com.blockvote.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * One vote of the audit export. Voter mobile numbers are not exported.
+ */
+public record VoteExportRow(Long id, Long candidateId, LocalDateTime votedAt, String walletAddress,
+        String transactionHash, Long blockNumber) {
+}
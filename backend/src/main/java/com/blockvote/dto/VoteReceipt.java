@@ -0,0 +1,25 @@
+package com.blockvote.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VoteReceipt {
+    private String receiptId;
+    private String status; // ACCEPTED, PERSISTED, CONFIRMED, UNCONFIRMED or REJECTED
+    private Long voteId; // Set once PERSISTED
+    private String proofToken; // Set once PERSISTED, unlocks the vote's inclusion proof
+    private String transactionHash; // Set once CONFIRMED
+    private Long blockNumber; // Set once CONFIRMED
+    private String message; // Rejection reason, or why an UNCONFIRMED vote was not confirmed
+    private LocalDateTime updatedAt;
+
+    @JsonIgnore
+    private String voterMobile;
+}
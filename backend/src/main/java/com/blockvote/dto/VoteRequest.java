@@ -11,4 +11,6 @@ public class VoteRequest {
     private String mobileNumber;
     private Long candidateId;
     private String walletAddress;
+    // Election to vote in; the current election when omitted
+    private Long electionId;
 }
@@ -7,7 +7,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "candidates")
+@Table(name = "candidates", indexes = @Index(name = "idx_candidates_election_id", columnList = "election_id"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -10,7 +10,11 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "elections")
+@Table(name = "elections", indexes = {
+        @Index(name = "idx_elections_status_stopped_at", columnList = "status, stoppedAt, id"),
+        @Index(name = "idx_elections_created_at", columnList = "createdAt"),
+        @Index(name = "idx_elections_status_created_at", columnList = "status, createdAt")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -33,13 +37,18 @@ public class Election {
 
     private LocalDateTime stoppedAt;
 
-    // Results stored as JSON string when election is completed
-    @Column(columnDefinition = "TEXT")
-    private String finalResults;
-
     @Column(nullable = false)
     private Integer totalVotes = 0;
 
+    // Incremented when the election is reset; only election_voters rows of this round count as voted
+    private Integer votingRound = 0;
+
+    // Root of the vote Merkle tree and the number of votes it covers, published at stop time
+    @Column(length = 64)
+    private String merkleRoot;
+
+    private Long merkleLeafCount;
+
     // One-to-many relationship with candidates
     @OneToMany(mappedBy = "election", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JsonManagedReference
@@ -0,0 +1,43 @@
+package com.blockvote.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Sealed results of a stopped election, written once at stop time.
+ * Kept out of the elections table so listing elections never loads the large TEXT columns.
+ */
+@Entity
+@Table(name = "election_results")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ElectionResults {
+
+    @Id
+    @Column(name = "election_id")
+    private Long electionId;
+
+    // Election statistics as compact JSON (candidates, counts, percentages, winner, turnout, ledger hash)
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String resultsJson;
+
+    // SHA-256 of resultsJson, used as the strong ETag
+    @Column(nullable = false, length = 64)
+    private String resultsHash;
+
+    // Turnout timeline buckets as JSON (see /admin/elections/{id}/timeline)
+    @Column(columnDefinition = "TEXT")
+    private String turnoutTimeline;
+
+    // SHA-256 over the election's votes in id order
+    @Column(length = 64)
+    private String ledgerHash;
+
+    @Column(nullable = false)
+    private LocalDateTime sealedAt;
+}
@@ -0,0 +1,42 @@
+package com.blockvote.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * A user who voted in an election. The row counts for the election's current voting round
+ * only, so resetting an election bumps Election.votingRound instead of touching any rows.
+ */
+@Entity
+@Table(name = "election_voters")
+@IdClass(ElectionVoter.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ElectionVoter {
+
+    @Id
+    @Column(name = "election_id")
+    private Long electionId;
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "voting_round", nullable = false)
+    private Integer votingRound;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private Long electionId;
+        private Long userId;
+    }
+}
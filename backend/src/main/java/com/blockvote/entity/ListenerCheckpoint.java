@@ -0,0 +1,46 @@
+package com.blockvote.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * A block the blockchain listener has fully processed, with its hash.
+ * The newest row is where the listener resumes; older rows let it find the fork point after a reorg.
+ */
+@Entity
+@Table(name = "listener_checkpoints")
+@IdClass(ListenerCheckpoint.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ListenerCheckpoint {
+
+    @Id
+    @Column(name = "contract_address", length = 42)
+    private String contractAddress;
+
+    @Id
+    @Column(name = "block_number")
+    private Long blockNumber;
+
+    @Column(name = "block_hash", nullable = false, length = 66)
+    private String blockHash;
+
+    @Column(nullable = false)
+    private LocalDateTime recordedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private String contractAddress;
+        private Long blockNumber;
+    }
+}
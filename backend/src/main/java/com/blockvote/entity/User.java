@@ -25,9 +25,6 @@ public class User {
     @Column(unique = true) // Nullable - voters set this after MetaMask verification
     private String walletAddress;
 
-    @Column(nullable = false)
-    private boolean hasVoted = false;
-
     // MetaMask wallet address (registered via signature verification)
     @Column(unique = true) // Nullable - set after wallet verification
     private String registeredWalletAddress;
@@ -8,14 +8,21 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "votes")
+@Table(name = "votes", indexes = {
+        @Index(name = "idx_votes_candidate_id", columnList = "candidateId"),
+        @Index(name = "idx_votes_election_id", columnList = "election_id, voting_round, id"),
+        @Index(name = "idx_votes_transaction_hash", columnList = "transaction_hash"),
+        @Index(name = "idx_votes_contract_block", columnList = "contract_address, block_number")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Vote {
 
+    // Pooled sequence so Hibernate can batch vote inserts (IDENTITY disables JDBC batching)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "vote_seq")
+    @SequenceGenerator(name = "vote_seq", sequenceName = "votes_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -24,6 +31,15 @@ public class Vote {
     @Column(nullable = false)
     private Long candidateId;
 
+    // Election of the candidate, so election-scoped scans need no join (backfilled for older rows)
+    @Column(name = "election_id")
+    private Long electionId;
+
+    // Voting round of the election the vote was cast in; a reset starts a new round and the
+    // votes of earlier rounds stay for the record but no longer count
+    @Column(name = "voting_round")
+    private Integer votingRound;
+
     @Column(nullable = false)
     private LocalDateTime votedAt;
 
@@ -35,4 +51,13 @@ public class Vote {
 
     @Column(name = "block_number")
     private Long blockNumber;
+
+    // Contract that emitted the VoteCast event of a blockchain vote (lower case), so a reorg of
+    // one contract's chain only rolls back that contract's votes
+    @Column(name = "contract_address")
+    private String contractAddress;
+
+    // Returned to the voter with the vote; unlocks its inclusion proof
+    @Transient
+    private String proofToken;
 }
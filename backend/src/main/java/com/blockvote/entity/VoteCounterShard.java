@@ -0,0 +1,35 @@
+package com.blockvote.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One slot of a sharded vote counter. A counter is owned by a candidate or an
+ * election and its value is the sum of all of its slots.
+ */
+@Entity
+@Table(name = "vote_counter_shards", uniqueConstraints = @UniqueConstraint(columnNames = { "counter_type",
+        "owner_id", "slot" }))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VoteCounterShard {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "counter_type", nullable = false)
+    private String counterType; // CANDIDATE or ELECTION
+
+    @Column(name = "owner_id", nullable = false)
+    private Long ownerId;
+
+    @Column(name = "slot", nullable = false)
+    private Integer slot;
+
+    @Column(name = "vote_count", nullable = false)
+    private Long voteCount = 0L;
+}
@@ -8,6 +8,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -19,6 +20,11 @@ public interface CandidateRepository extends JpaRepository<Candidate, Long> {
     // Find all candidates for a specific election (including inactive)
     List<Candidate> findByElectionId(Long electionId);
 
+    // Active candidates of several elections as (electionId, name, voteCount), for archive listings
+    @Query("SELECT c.electionId, c.name, c.voteCount FROM Candidate c " +
+            "WHERE c.electionId IN :electionIds AND c.isActive = true ORDER BY c.id")
+    List<Object[]> findActiveSummaries(@Param("electionIds") Collection<Long> electionIds);
+
     // Delete all candidates for a specific election
     void deleteByElectionId(Long electionId);
 
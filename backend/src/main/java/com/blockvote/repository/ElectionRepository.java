@@ -1,9 +1,16 @@
 package com.blockvote.repository;
 
+import com.blockvote.dto.ArchivedElection;
 import com.blockvote.entity.Election;
+import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,7 +20,9 @@ public interface ElectionRepository extends JpaRepository<Election, Long> {
 
     List<Election> findByStatus(String status);
 
-    Optional<Election> findByStatusOrderByCreatedAtDesc(String status);
+    Optional<Election> findFirstByStatusOrderByCreatedAtDesc(String status);
+
+    List<Election> findByStatusInOrderByCreatedAtDesc(List<String> statuses);
     
     // Archive related queries
     List<Election> findByStatusOrderByStoppedAtDesc(String status);
@@ -21,4 +30,25 @@ public interface ElectionRepository extends JpaRepository<Election, Long> {
     List<Election> findByStatusInOrderByStoppedAtDesc(List<String> statuses);
     
     Optional<Election> findByIdAndStatus(Long id, String status);
+
+    @Query("SELECT e.id FROM Election e WHERE e.status = :status ORDER BY e.createdAt DESC")
+    List<Long> findIdsByStatusNewestFirst(@Param("status") String status, Pageable page);
+
+    // SELECT ... FOR UPDATE: waits for vote groups holding the row in share mode
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM Election e WHERE e.id = :id")
+    Optional<Election> findByIdForUpdate(@Param("id") Long id);
+
+    // Keyset pagination over (stoppedAt, id), newest first; the row-value comparison lets the
+    // (status, stopped_at, id) index seek straight to the cursor
+    @Query("SELECT new com.blockvote.dto.ArchivedElection(e.id, e.title, e.stoppedAt, e.totalVotes) " +
+            "FROM Election e WHERE e.status = 'STOPPED' ORDER BY e.stoppedAt DESC, e.id DESC")
+    List<ArchivedElection> findArchiveFirstPage(Pageable page);
+
+    @Query("SELECT new com.blockvote.dto.ArchivedElection(e.id, e.title, e.stoppedAt, e.totalVotes) " +
+            "FROM Election e WHERE e.status = 'STOPPED' " +
+            "AND (e.stoppedAt, e.id) < (:stoppedAt, :id) " +
+            "ORDER BY e.stoppedAt DESC, e.id DESC")
+    List<ArchivedElection> findArchivePageAfter(@Param("stoppedAt") LocalDateTime stoppedAt, @Param("id") Long id,
+            Pageable page);
 }
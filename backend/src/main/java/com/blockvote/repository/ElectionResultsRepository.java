@@ -0,0 +1,9 @@
+package com.blockvote.repository;
+
+import com.blockvote.entity.ElectionResults;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ElectionResultsRepository extends JpaRepository<ElectionResults, Long> {
+}
@@ -0,0 +1,28 @@
+package com.blockvote.repository;
+
+import com.blockvote.entity.ListenerCheckpoint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ListenerCheckpointRepository extends JpaRepository<ListenerCheckpoint, ListenerCheckpoint.Key> {
+
+    Optional<ListenerCheckpoint> findTopByContractAddressOrderByBlockNumberDesc(String contractAddress);
+
+    List<ListenerCheckpoint> findByContractAddressOrderByBlockNumberDesc(String contractAddress, Pageable page);
+
+    @Modifying
+    @Query("DELETE FROM ListenerCheckpoint c WHERE c.contractAddress = :contractAddress AND c.blockNumber > :blockNumber")
+    int deleteAfter(@Param("contractAddress") String contractAddress, @Param("blockNumber") Long blockNumber);
+
+    @Modifying
+    @Query("DELETE FROM ListenerCheckpoint c WHERE c.contractAddress = :contractAddress AND c.blockNumber < :blockNumber")
+    int deleteBefore(@Param("contractAddress") String contractAddress, @Param("blockNumber") Long blockNumber);
+}
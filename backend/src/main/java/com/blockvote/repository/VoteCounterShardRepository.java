@@ -0,0 +1,48 @@
+package com.blockvote.repository;
+
+import com.blockvote.entity.VoteCounterShard;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface VoteCounterShardRepository extends JpaRepository<VoteCounterShard, Long> {
+
+    // Atomically add to a single slot - returns 0 when the slot does not exist yet
+    @Modifying
+    @Transactional
+    @Query("UPDATE VoteCounterShard s SET s.voteCount = s.voteCount + :delta " +
+            "WHERE s.counterType = :type AND s.ownerId = :ownerId AND s.slot = :slot")
+    int increment(@Param("type") String type, @Param("ownerId") Long ownerId,
+            @Param("slot") Integer slot, @Param("delta") long delta);
+
+    // Create slots 0..shards-1 in one statement; slots that already exist (e.g. created by a
+    // concurrent first vote) are left alone instead of violating the unique constraint
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO vote_counter_shards (counter_type, owner_id, slot, vote_count) " +
+            "SELECT :type, :ownerId, slot, 0 FROM generate_series(0, :shards - 1) AS slot " +
+            "ON CONFLICT (counter_type, owner_id, slot) DO NOTHING", nativeQuery = true)
+    int createSlots(@Param("type") String type, @Param("ownerId") Long ownerId, @Param("shards") int shards);
+
+    // Counter value = sum of all slots, as [ownerId, sum] rows (owners without slots are absent)
+    @Query("SELECT s.ownerId, SUM(s.voteCount) FROM VoteCounterShard s " +
+            "WHERE s.counterType = :type AND s.ownerId IN :ownerIds GROUP BY s.ownerId")
+    List<Object[]> sumByOwners(@Param("type") String type, @Param("ownerIds") Collection<Long> ownerIds);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE VoteCounterShard s SET s.voteCount = 0 WHERE s.counterType = :type AND s.ownerId IN :ownerIds")
+    void resetByOwners(@Param("type") String type, @Param("ownerIds") Collection<Long> ownerIds);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM VoteCounterShard s WHERE s.counterType = :type AND s.ownerId IN :ownerIds")
+    void deleteByOwners(@Param("type") String type, @Param("ownerIds") Collection<Long> ownerIds);
+}
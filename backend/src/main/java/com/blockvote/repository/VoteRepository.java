@@ -1,10 +1,19 @@
 package com.blockvote.repository;
 
+import com.blockvote.dto.VoteExportRow;
 import com.blockvote.entity.Vote;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface VoteRepository extends JpaRepository<Vote, Long> {
@@ -15,5 +24,23 @@ public interface VoteRepository extends JpaRepository<Vote, Long> {
     // Blockchain-related queries
     boolean existsByWalletAddressAndTransactionHash(String walletAddress, String transactionHash);
 
+    // "walletAddress:transactionHash" of the votes recorded for any of the transactions
+    @Query("SELECT CONCAT(v.walletAddress, ':', v.transactionHash) FROM Vote v WHERE v.transactionHash IN :hashes")
+    List<String> findWalletTransactionKeys(@Param("hashes") Collection<String> hashes);
+
     Optional<Vote> findByTransactionHash(String transactionHash);
+
+    @Query("SELECT v.id FROM Vote v WHERE v.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    // Forward-only cursor over the votes of an election; must be consumed inside a read-only transaction
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "5000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.blockvote.dto.VoteExportRow(v.id, v.candidateId, v.votedAt, v.walletAddress, " +
+            "v.transactionHash, v.blockNumber) FROM Vote v, Election e " +
+            "WHERE e.id = v.electionId AND v.electionId = :electionId " +
+            "AND v.votingRound = COALESCE(e.votingRound, 0) ORDER BY v.id")
+    Stream<VoteExportRow> streamForExport(@Param("electionId") Long electionId);
 }
@@ -5,16 +5,14 @@ import com.blockvote.entity.Candidate;
 import com.blockvote.entity.Election;
 import com.blockvote.repository.CandidateRepository;
 import com.blockvote.repository.ElectionRepository;
-import com.blockvote.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -22,8 +20,15 @@ public class AdminService {
 
     private final ElectionRepository electionRepository;
     private final CandidateRepository candidateRepository;
-    private final UserRepository userRepository;
     private final BlockchainConsoleService consoleService;
+    private final VoteCounterService voteCounterService;
+    private final ElectionContextService electionContextService;
+    private final VoterRegistryService voterRegistry;
+    private final SimulatedChainScheduler chainScheduler;
+    private final LiveResultsService liveResultsService;
+    private final TurnoutTimelineService turnoutTimelineService;
+    private final ElectionResultsService electionResultsService;
+    private final MerkleService merkleService;
 
     @Transactional
     public Election createElection(String title) {
@@ -32,9 +37,7 @@ public class AdminService {
             throw new RuntimeException("Election title cannot be empty");
         }
 
-        // Stop any previous active election first
-        stopAnyActiveElection();
-
+        // Elections run side by side: a new one leaves the others untouched
         Election election = new Election();
         election.setTitle(title.trim());
         election.setStatus("CREATED");
@@ -43,52 +46,27 @@ public class AdminService {
 
         consoleService.broadcastContractDeploymentStart();
         Election savedElection = electionRepository.save(election);
+        voteCounterService.ensureSlots(VoteCounterService.ELECTION, savedElection.getId());
 
-        // Reset all users' voting status for fresh election
-        resetAllVotingStatus();
+        // Voting status is tracked per election, so a fresh election starts with no voters
+        // without touching any user rows
+        consoleService.broadcastBlockchainActivity("All voter statuses reset for new election");
+        electionContextService.refreshAfterCommit(savedElection.getId());
 
         // Simulate contract deployment process
-        new Thread(() -> {
-            try {
-                Thread.sleep(2000); // Simulate deployment time
-                String contractAddress = "0xA23b4c5d6e7f890123456789012345678901F" + savedElection.getId();
-                consoleService.broadcastContractDeploymentSuccess(contractAddress);
-
-                Thread.sleep(500);
-                consoleService.broadcastBlockchainActivity("Fresh election created - all votes reset");
-
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-        }).start();
+        String contractAddress = "0xA23b4c5d6e7f890123456789012345678901F" + savedElection.getId();
+        chainScheduler.schedule(2000, () -> consoleService.broadcastContractDeploymentSuccess(contractAddress));
+        chainScheduler.schedule(2500,
+                () -> consoleService.broadcastBlockchainActivity("Fresh election created - all votes reset"));
 
         return savedElection;
     }
 
-    @Transactional
-    private void stopAnyActiveElection() {
-        electionRepository.findByStatus("ACTIVE").forEach(election -> {
-            election.setStatus("STOPPED");
-            election.setStoppedAt(LocalDateTime.now());
-            // Store final results before stopping
-            storeFinalResults(election);
-        });
-    }
-
-    @Transactional
-    private void resetAllVotingStatus() {
-        userRepository.findAll().forEach(user -> {
-            user.setHasVoted(false);
-            userRepository.save(user);
-        });
-        consoleService.broadcastBlockchainActivity("All voter statuses reset for new election");
-    }
-
     @Transactional
     public Candidate addCandidate(CandidateRequest request) {
-        // Get the current election in CREATED status
-        Election currentElection = electionRepository.findByStatusOrderByCreatedAtDesc("CREATED")
-                .orElseThrow(() -> new RuntimeException("No active election found to add candidates"));
+        // Get the named (or latest) election in CREATED status
+        Election currentElection = findElection(request.getElectionId(), "CREATED",
+                "No active election found to add candidates");
 
         Candidate candidate = new Candidate();
         candidate.setName(request.getName());
@@ -99,6 +77,8 @@ public class AdminService {
         candidate.setIsActive(true);
 
         Candidate savedCandidate = candidateRepository.save(candidate);
+        voteCounterService.ensureSlots(VoteCounterService.CANDIDATE, savedCandidate.getId());
+        electionContextService.refreshAfterCommit(currentElection.getId());
 
         // Simulate smart contract transaction for adding candidate
         String txHash = "0xC" + Long.toHexString(System.currentTimeMillis()).substring(0, 8) +
@@ -108,28 +88,18 @@ public class AdminService {
                 "addCandidate(" + request.getName() + ")", txHash);
 
         // Simulate async blockchain confirmation
-        new Thread(() -> {
-            try {
-                Thread.sleep(1500);
-                consoleService.broadcastTransactionConfirmed(txHash, 2039215L + savedCandidate.getId());
-
-                Thread.sleep(300);
-                consoleService.broadcastBlockchainActivity(
-                        String.format("Candidate registered on blockchain: %s (%s)",
-                                request.getName(), request.getParty()));
-
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-        }).start();
+        chainScheduler.schedule(1500,
+                () -> consoleService.broadcastTransactionConfirmed(txHash, 2039215L + savedCandidate.getId()));
+        chainScheduler.schedule(1800, () -> consoleService.broadcastBlockchainActivity(
+                String.format("Candidate registered on blockchain: %s (%s)",
+                        request.getName(), request.getParty())));
 
         return savedCandidate;
     }
 
     @Transactional
-    public Election startElection() {
-        Election election = electionRepository.findByStatusOrderByCreatedAtDesc("CREATED")
-                .orElseThrow(() -> new RuntimeException("No election in CREATED status found"));
+    public Election startElection(Long electionId) {
+        Election election = findElection(electionId, "CREATED", "No election in CREATED status found");
 
         // Check if there are candidates
         List<Candidate> candidates = candidateRepository.findByElectionIdAndIsActiveTrue(election.getId());
@@ -143,207 +113,193 @@ public class AdminService {
         // Reset vote counts for fresh start
         candidateRepository.resetVoteCountsByElectionId(election.getId());
         election.setTotalVotes(0);
+        voteCounterService.reset(VoteCounterService.CANDIDATE,
+                candidates.stream().map(Candidate::getId).toList());
+        voteCounterService.reset(VoteCounterService.ELECTION, List.of(election.getId()));
+        turnoutTimelineService.discard(election.getId());
+        merkleService.discard(election.getId());
 
         Election savedElection = electionRepository.save(election);
+        electionContextService.refreshAfterCommit(savedElection.getId());
 
         // Simulate smart contract call to start voting
         String txHash = "0xS" + Long.toHexString(System.currentTimeMillis()).substring(0, 10);
         consoleService.broadcastVoteTransactionSubmitted("startVoting()", txHash);
 
-        new Thread(() -> {
-            try {
-                Thread.sleep(1200);
-                consoleService.broadcastTransactionConfirmed(txHash, 2039210L + savedElection.getId());
-
-                Thread.sleep(200);
-                consoleService.broadcastBlockchainActivity("Election started - voting is now active on blockchain");
-
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-        }).start();
+        chainScheduler.schedule(1200,
+                () -> consoleService.broadcastTransactionConfirmed(txHash, 2039210L + savedElection.getId()));
+        chainScheduler.schedule(1400, () -> consoleService.broadcastBlockchainActivity(
+                "Election started - voting is now active on blockchain"));
 
         return savedElection;
     }
 
     @Transactional
-    public Election stopElection() {
-        Election election = electionRepository.findByStatusOrderByCreatedAtDesc("ACTIVE")
-                .orElseThrow(() -> new RuntimeException("No active election found"));
-
+    public Election stopElection(Long electionId) {
+        // Lock the row and write STOPPED before reading any result: the lock waits for vote
+        // groups still in flight, and every group after it is turned away by the gate
+        Election election = lockActiveElection(electionId);
         election.setStatus("STOPPED");
         election.setStoppedAt(LocalDateTime.now());
+        election = electionRepository.saveAndFlush(election);
 
         // Store final results
         storeFinalResults(election);
+        voterRegistry.forget(election.getId());
 
         Election savedElection = electionRepository.save(election);
+        electionContextService.refreshAfterCommit(savedElection.getId());
 
         // Simulate smart contract call to stop voting
         String txHash = "0xE" + Long.toHexString(System.currentTimeMillis()).substring(0, 10);
         consoleService.broadcastVoteTransactionSubmitted("stopVoting()", txHash);
 
-        new Thread(() -> {
-            try {
-                Thread.sleep(1000);
-                consoleService.broadcastTransactionConfirmed(txHash, 2039230L + savedElection.getId());
-
-                Thread.sleep(200);
-                consoleService.broadcastBlockchainActivity("Election stopped - voting is now closed on blockchain");
-
-                Thread.sleep(300);
-                consoleService.broadcastBlockchainActivity("Final results sealed in smart contract");
-
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-        }).start();
+        chainScheduler.schedule(1000,
+                () -> consoleService.broadcastTransactionConfirmed(txHash, 2039230L + savedElection.getId()));
+        chainScheduler.schedule(1200, () -> consoleService.broadcastBlockchainActivity(
+                "Election stopped - voting is now closed on blockchain"));
+        chainScheduler.schedule(1500,
+                () -> consoleService.broadcastBlockchainActivity("Final results sealed in smart contract"));
 
         return savedElection;
     }
 
+    // Runs with the election row locked and STOPPED flushed (see stopElection)
     private void storeFinalResults(Election election) {
         List<Candidate> candidates = candidateRepository.findByElectionId(election.getId());
 
-        Map<String, Object> results = new HashMap<>();
-        results.put("electionId", election.getId());
-        results.put("electionTitle", election.getTitle());
-        results.put("totalVotes", election.getTotalVotes());
-        results.put("candidates", candidates.stream().map(c -> {
-            Map<String, Object> candidateResult = new HashMap<>();
-            candidateResult.put("name", c.getName());
-            candidateResult.put("party", c.getParty());
-            candidateResult.put("voteCount", c.getVoteCount());
-            return candidateResult;
-        }).collect(Collectors.toList()));
-
-        try {
-            // Note: In real implementation, this would use ObjectMapper
-            // For now, store as simple string representation
-            election.setFinalResults(results.toString());
-        } catch (Exception e) {
-            consoleService.broadcastBlockchainActivity("Error storing election results: " + e.getMessage());
-        }
+        // Fold the sharded counters into the candidate and election rows - they are final from here on
+        Map<Long, Long> totals = voteCounterService.getCandidateTotals(candidates);
+        candidates.forEach(c -> {
+            c.setVoteCount(totals.get(c.getId()).intValue());
+            candidateRepository.save(c);
+        });
+        election.setTotalVotes((int) voteCounterService.getElectionTotal(election));
+
+        // Publish the root voters verify their inclusion proofs against. Rebuilt from the votes
+        // table, since the last groups may have committed without reaching the in-memory tree yet
+        merkleService.discard(election.getId());
+        MerkleService.Root root = merkleService.root(election.getId());
+        election.setMerkleRoot(root.hash());
+        election.setMerkleLeafCount(root.size());
+
+        // Seal the results once; archive statistics are served from this snapshot from now on
+        electionResultsService.seal(election, candidates.stream()
+                .filter(c -> Boolean.TRUE.equals(c.getIsActive()))
+                .toList());
     }
 
-    public Map<String, Object> getResults() {
-        Election currentElection = electionRepository.findTopByOrderByCreatedAtDesc().orElse(null);
-
-        if (currentElection == null) {
-            return Map.of("totalVotes", 0, "results", List.of(), "message", "No election found");
-        }
-
-        List<Candidate> candidates = candidateRepository.findByElectionId(currentElection.getId());
-
-        int totalVotes = candidates.stream()
-                .mapToInt(Candidate::getVoteCount)
-                .sum();
-
-        List<Map<String, Object>> results = candidates.stream()
-                .map(c -> {
-                    Map<String, Object> result = new HashMap<>();
-                    result.put("id", c.getId());
-                    result.put("name", c.getName());
-                    result.put("party", c.getParty());
-                    result.put("voteCount", c.getVoteCount());
-                    return result;
-                })
-                .collect(Collectors.toList());
-
-        Map<String, Object> response = new HashMap<>();
-        response.put("totalVotes", totalVotes);
-        response.put("results", results);
-        response.put("electionId", currentElection.getId());
-        response.put("electionStatus", currentElection.getStatus());
-
-        return response;
+    /**
+     * Live results of an election (the current one when electionId is null), served from the
+     * in-memory results view
+     */
+    public LiveResults getResults(Long electionId) {
+        return liveResultsService.get(electionId);
     }
 
-    public List<Candidate> getCandidatesForCurrentElection() {
-        Election currentElection = electionRepository.findTopByOrderByCreatedAtDesc().orElse(null);
-        if (currentElection == null) {
+    public List<Candidate> getCandidatesForElection(Long electionId) {
+        ElectionContext election = electionContextService.get(electionId);
+        if (!election.exists()) {
             return List.of();
         }
-        return candidateRepository.findByElectionIdAndIsActiveTrue(currentElection.getId());
+        return voteCounterService.withLiveCounts(
+                candidateRepository.findByElectionIdAndIsActiveTrue(election.electionId()));
     }
 
-    public Election getElectionStatus() {
-        return electionRepository.findTopByOrderByCreatedAtDesc()
+    public Election getElectionStatus(Long electionId) {
+        ElectionContext election = electionContextService.get(electionId);
+        if (!election.exists()) {
+            return null;
+        }
+        return electionRepository.findById(election.electionId())
                 .orElse(null);
     }
 
+    /**
+     * Elections that have not been stopped, newest first
+     */
+    public List<Election> getOpenElections() {
+        return electionRepository.findByStatusInOrderByCreatedAtDesc(List.of("CREATED", "ACTIVE"));
+    }
+
     @Transactional
-    public void resetElection() {
-        Election currentElection = electionRepository.findTopByOrderByCreatedAtDesc().orElse(null);
+    public void resetElection(Long electionId) {
+        Election currentElection = electionId == null
+                ? electionRepository.findTopByOrderByCreatedAtDesc().orElse(null)
+                : electionRepository.findById(electionId)
+                        .orElseThrow(() -> new RuntimeException("Election not found with id: " + electionId));
         if (currentElection != null) {
-            // Delete all candidates for current election
+            // Delete all candidates for current election, along with their counters
+            List<Long> candidateIds = candidateRepository.findByElectionId(currentElection.getId()).stream()
+                    .map(Candidate::getId)
+                    .toList();
+            voteCounterService.delete(VoteCounterService.CANDIDATE, candidateIds);
+            voteCounterService.reset(VoteCounterService.ELECTION, List.of(currentElection.getId()));
             candidateRepository.deleteByElectionId(currentElection.getId());
+            turnoutTimelineService.discard(currentElection.getId());
+            merkleService.discard(currentElection.getId());
 
             // Reset election status
             currentElection.setStatus("CREATED");
             currentElection.setStartedAt(null);
             currentElection.setStoppedAt(null);
             currentElection.setTotalVotes(0);
+            // Start a new voting round: votes recorded in earlier rounds no longer count
+            currentElection.setVotingRound((currentElection.getVotingRound() == null
+                    ? 0 : currentElection.getVotingRound()) + 1);
             electionRepository.save(currentElection);
-
-            // Reset all voting statuses
-            resetAllVotingStatus();
+            consoleService.broadcastBlockchainActivity("All voter statuses reset for new election");
+            electionContextService.refreshAfterCommit(currentElection.getId());
 
             consoleService.broadcastBlockchainActivity("Election reset - ready to add new candidates");
         }
     }
 
-    // Archive related methods
-    public List<Election> getArchivedElections() {
-        return electionRepository.findByStatusOrderByStoppedAtDesc("STOPPED");
+    // The named election, which must be in the given status, or the latest one in that status
+    // Like findElection(electionId, "ACTIVE", ...), but the row is read FOR UPDATE. The id is
+    // resolved without loading the entity, so the locked read is not served a stale managed copy.
+    private Election lockActiveElection(Long electionId) {
+        Long id = electionId != null ? electionId
+                : electionRepository.findIdsByStatusNewestFirst("ACTIVE", PageRequest.of(0, 1)).stream()
+                        .findFirst()
+                        .orElseThrow(() -> new RuntimeException("No active election found"));
+        Election election = electionRepository.findByIdForUpdate(id)
+                .orElseThrow(() -> new RuntimeException("Election not found with id: " + id));
+        if (!"ACTIVE".equals(election.getStatus())) {
+            throw new RuntimeException("Election " + id + " is " + election.getStatus() + ", expected ACTIVE");
+        }
+        return election;
     }
 
-    public Election getArchivedElectionById(Long id) {
-        return electionRepository.findByIdAndStatus(id, "STOPPED")
-                .orElseThrow(() -> new RuntimeException("Archived election not found with id: " + id));
+    private Election findElection(Long electionId, String status, String notFoundMessage) {
+        if (electionId == null) {
+            return electionRepository.findFirstByStatusOrderByCreatedAtDesc(status)
+                    .orElseThrow(() -> new RuntimeException(notFoundMessage));
+        }
+        Election election = electionRepository.findById(electionId)
+                .orElseThrow(() -> new RuntimeException("Election not found with id: " + electionId));
+        if (!status.equals(election.getStatus())) {
+            throw new RuntimeException("Election " + electionId + " is " + election.getStatus()
+                    + ", expected " + status);
+        }
+        return election;
     }
 
-    public Map<String, Object> getElectionStatistics(Long electionId) {
-        Election election = getArchivedElectionById(electionId);
-        List<Candidate> candidates = candidateRepository.findByElectionIdAndIsActiveTrue(electionId);
-
-        Map<String, Object> stats = new HashMap<>();
-        stats.put("election", election);
-        stats.put("candidates", candidates);
-        stats.put("totalVotes", election.getTotalVotes());
-        stats.put("duration", calculateElectionDuration(election));
-        
-        // Calculate winner
-        Candidate winner = candidates.stream()
-                .max((c1, c2) -> Integer.compare(c1.getVoteCount(), c2.getVoteCount()))
-                .orElse(null);
-        stats.put("winner", winner);
-        
-        // Calculate vote percentages
-        if (election.getTotalVotes() > 0) {
-            Map<String, Double> percentages = candidates.stream()
-                    .collect(Collectors.toMap(
-                            Candidate::getName,
-                            c -> (double) c.getVoteCount() / election.getTotalVotes() * 100
-                    ));
-            stats.put("votePercentages", percentages);
-        }
+    public TurnoutTimelineService.TimelineView getTimeline(Long electionId, String resolution) {
+        return turnoutTimelineService.getTimeline(electionId, resolution);
+    }
 
-        return stats;
+    public Map<String, Object> getSimulatedChainStats() {
+        return chainScheduler.getStats();
     }
 
-    private String calculateElectionDuration(Election election) {
-        if (election.getStartedAt() == null || election.getStoppedAt() == null) {
-            return "Unknown";
-        }
-        
-        long minutes = java.time.Duration.between(election.getStartedAt(), election.getStoppedAt()).toMinutes();
-        if (minutes < 60) {
-            return minutes + " minutes";
-        } else {
-            long hours = minutes / 60;
-            long remainingMinutes = minutes % 60;
-            return hours + " hours " + (remainingMinutes > 0 ? remainingMinutes + " minutes" : "");
-        }
+    // Archive related methods
+    public Election getArchivedElectionById(Long id) {
+        return electionRepository.findByIdAndStatus(id, "STOPPED")
+                .orElseThrow(() -> new RuntimeException("Archived election not found with id: " + id));
+    }
+
+    public ElectionResultsService.SealedResults getElectionStatistics(Long electionId) {
+        return electionResultsService.getStatistics(getArchivedElectionById(electionId));
     }
 }
@@ -0,0 +1,124 @@
+package com.blockvote.service;
+
+import com.blockvote.dto.ArchivedElection;
+import com.blockvote.repository.CandidateRepository;
+import com.blockvote.repository.ElectionRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Archive listing with keyset pagination over (stoppedAt, id).
+ * Pages are read as lightweight projections and written to the response one row at a time.
+ */
+@Service
+@RequiredArgsConstructor
+public class ArchiveService {
+
+    private static final int MAX_PAGE_SIZE = 500;
+
+    private final ElectionRepository electionRepository;
+    private final CandidateRepository candidateRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * One page of archived elections, newest first, and the cursor of the next page (null on the last page)
+     */
+    public record ArchivePage(List<ArchivedElection> elections, String nextCursor) {
+    }
+
+    public ArchivePage getPage(String cursor, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new RuntimeException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        // Fetch one extra row to know whether there is a next page
+        PageRequest page = PageRequest.of(0, limit + 1);
+        List<ArchivedElection> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = electionRepository.findArchiveFirstPage(page);
+        } else {
+            Cursor position = decode(cursor);
+            rows = electionRepository.findArchivePageAfter(position.stoppedAt(), position.id(), page);
+        }
+
+        boolean hasMore = rows.size() > limit;
+        List<ArchivedElection> elections = withCandidates(hasMore ? rows.subList(0, limit) : rows);
+        String nextCursor = hasMore ? encode(elections.get(elections.size() - 1)) : null;
+        return new ArchivePage(elections, nextCursor);
+    }
+
+    /**
+     * Write the page as {"success", "message", "data": [...], "nextCursor"} without building it in memory first
+     */
+    public void writePage(ArchivePage page, OutputStream out) throws IOException {
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+            json.writeStartObject();
+            json.writeBooleanField("success", true);
+            json.writeStringField("message", "Archived elections retrieved successfully");
+            json.writeArrayFieldStart("data");
+            for (ArchivedElection election : page.elections()) {
+                objectMapper.writeValue(json, election);
+            }
+            json.writeEndArray();
+            json.writeStringField("nextCursor", page.nextCursor());
+            json.writeEndObject();
+        }
+    }
+
+    // Winner and candidate count for every election of the page in one query
+    private List<ArchivedElection> withCandidates(List<ArchivedElection> elections) {
+        if (elections.isEmpty()) {
+            return elections;
+        }
+
+        Map<Long, Object[]> winners = new HashMap<>();
+        Map<Long, Long> counts = new HashMap<>();
+        for (Object[] row : candidateRepository.findActiveSummaries(
+                elections.stream().map(ArchivedElection::id).toList())) {
+            Long electionId = (Long) row[0];
+            counts.merge(electionId, 1L, Long::sum);
+            Object[] best = winners.get(electionId);
+            if (best == null || (Integer) row[2] > (Integer) best[2]) {
+                winners.put(electionId, row);
+            }
+        }
+
+        return elections.stream()
+                .map(e -> e.withCandidates(
+                        winners.containsKey(e.id()) && (Integer) winners.get(e.id())[2] > 0
+                                ? (String) winners.get(e.id())[1] : null,
+                        counts.getOrDefault(e.id(), 0L)))
+                .toList();
+    }
+
+    private record Cursor(LocalDateTime stoppedAt, Long id) {
+    }
+
+    private static String encode(ArchivedElection last) {
+        String value = last.stoppedAt() + "|" + last.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Cursor decode(String cursor) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = value.lastIndexOf('|');
+            return new Cursor(LocalDateTime.parse(value.substring(0, separator)),
+                    Long.parseLong(value.substring(separator + 1)));
+        } catch (Exception e) {
+            throw new RuntimeException("Invalid archive cursor");
+        }
+    }
+}
@@ -16,6 +16,8 @@ import java.util.Map;
 public class AuthService {
 
     private final UserRepository userRepository;
+    private final VoterRegistryService voterRegistry;
+    private final ElectionContextService electionContextService;
     private static final String HARDCODED_OTP = "123456";
 
     // Store nonces temporarily (in production, use Redis or database with TTL)
@@ -27,6 +29,12 @@ public class AuthService {
             throw new RuntimeException("Invalid OTP");
         }
 
+        // Reject unknown users from memory before touching the database
+        if (voterRegistry.isAuthoritative(request.getMobileNumber())
+                && voterRegistry.find(request.getMobileNumber()) == null) {
+            throw new RuntimeException("User not found");
+        }
+
         // Find user by mobile number
         User user = userRepository.findByMobileNumber(request.getMobileNumber())
                 .orElseThrow(() -> new RuntimeException("User not found"));
@@ -50,12 +58,17 @@ public class AuthService {
             }
         }
 
+        // Voting status is resolved against the current round of the current election
+        ElectionContext election = electionContextService.current();
+        boolean hasVoted = election.exists()
+                && voterRegistry.hasVoted(user.getId(), election.electionId(), election.votingRound());
+
         return new LoginResponse(
                 "Login successful",
                 user.getRole(),
                 user.getMobileNumber(),
                 user.getWalletAddress(),
-                user.isHasVoted(),
+                hasVoted,
                 user.isWalletVerified(),
                 user.getRegisteredWalletAddress());
     }
@@ -87,9 +100,10 @@ public class AuthService {
         newVoter.setMobileNumber(request.getMobileNumber());
         newVoter.setRole("VOTER");
         newVoter.setWalletAddress(request.getWalletAddress());
-        newVoter.setHasVoted(false);
 
-        return userRepository.save(newVoter);
+        User savedVoter = userRepository.save(newVoter);
+        voterRegistry.register(savedVoter);
+        return savedVoter;
     }
 
     /**
@@ -208,7 +222,9 @@ public class AuthService {
         // Remove used nonce
         nonceStore.remove(request.getMobileNumber());
 
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        voterRegistry.markWalletVerified(request.getMobileNumber());
+        return savedUser;
     }
 
     /**
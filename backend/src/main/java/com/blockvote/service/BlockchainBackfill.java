@@ -0,0 +1,178 @@
+package com.blockvote.service;
+
+import com.blockvote.dto.BlockchainVoteEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.web3j.protocol.core.methods.response.EthBlock;
+
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntSupplier;
+
+/**
+ * One historical backfill run of the blockchain listener. [fromBlock, toBlock] is split into
+ * chunks that are fetched and decoded concurrently on virtual threads, at most concurrency at
+ * a time, while the calling thread commits them strictly in block order - so counters and
+ * checkpoints advance exactly as a sequential scan would, and a crash resumes after the last
+ * committed chunk.
+ */
+@Slf4j
+class BlockchainBackfill {
+
+    private static final long PROGRESS_LOG_NANOS = 10_000_000_000L;
+
+    /**
+     * Fetches and decodes the votes of one chunk; runs on a virtual thread
+     */
+    interface Fetcher {
+        Chunk fetch(BigInteger from, BigInteger to) throws Exception;
+    }
+
+    /**
+     * Commits a chunk on the calling thread; false stops the run (e.g. the chain changed)
+     */
+    interface Committer {
+        boolean commit(Chunk chunk) throws Exception;
+    }
+
+    /**
+     * Blocks [from, to] with their boundary headers and votes in block and log index order
+     */
+    record Chunk(BigInteger from, BigInteger to, EthBlock.Block first, EthBlock.Block last,
+            List<BlockchainVoteEvent> votes) {
+    }
+
+    private final BigInteger fromBlock;
+    private final BigInteger toBlock;
+    private final int concurrency;
+    private final IntSupplier chunkSize;
+
+    private final long startedAt = System.currentTimeMillis();
+    private volatile long startedNanos;
+    private volatile long finishedNanos;
+    private volatile BigInteger committedBlock;
+    private volatile long blocks;
+    private volatile long logs;
+    private volatile long chunks;
+    private volatile String state = "PENDING";
+    private volatile String error;
+
+    BlockchainBackfill(BigInteger fromBlock, BigInteger toBlock, int concurrency, IntSupplier chunkSize) {
+        this.fromBlock = fromBlock;
+        this.toBlock = toBlock;
+        this.concurrency = Math.max(1, concurrency);
+        this.chunkSize = chunkSize;
+        this.committedBlock = fromBlock.subtract(BigInteger.ONE);
+    }
+
+    /**
+     * Run to completion, until the committer declines a chunk or until keepGoing turns false
+     */
+    void run(Fetcher fetcher, Committer committer, BooleanSupplier keepGoing) throws Exception {
+        startedNanos = System.nanoTime();
+        state = "RUNNING";
+        log.info("Backfilling blocks {}-{} with {} concurrent requests", fromBlock, toBlock, concurrency);
+
+        long lastLog = startedNanos;
+        Deque<Future<Chunk>> window = new ArrayDeque<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            BigInteger next = fromBlock;
+            try {
+                while (true) {
+                    while (window.size() < concurrency && next.compareTo(toBlock) <= 0) {
+                        BigInteger from = next;
+                        BigInteger to = toBlock.min(from.add(BigInteger.valueOf(Math.max(1, chunkSize.getAsInt()) - 1L)));
+                        window.addLast(executor.submit(() -> fetcher.fetch(from, to)));
+                        next = to.add(BigInteger.ONE);
+                    }
+                    if (window.isEmpty()) {
+                        state = "COMPLETED";
+                        break;
+                    }
+
+                    Chunk chunk = window.removeFirst().get();
+                    if (!committer.commit(chunk)) {
+                        state = "STOPPED";
+                        break;
+                    }
+                    committedBlock = chunk.to();
+                    blocks += chunk.to().subtract(chunk.from()).longValue() + 1;
+                    logs += chunk.votes().size();
+                    chunks++;
+
+                    if (!keepGoing.getAsBoolean()) {
+                        state = "STOPPED";
+                        break;
+                    }
+                    if (System.nanoTime() - lastLog >= PROGRESS_LOG_NANOS) {
+                        lastLog = System.nanoTime();
+                        log.info("Backfill at block {} of {}: {} blocks/s, {} logs/s", committedBlock, toBlock,
+                                Math.round(blocksPerSecond()), Math.round(logsPerSecond()));
+                    }
+                }
+            } catch (ExecutionException e) {
+                fail(e.getCause());
+                throw e.getCause() instanceof Exception cause ? cause : e;
+            } catch (Exception e) {
+                fail(e);
+                throw e;
+            } finally {
+                window.forEach(future -> future.cancel(true));
+                finishedNanos = System.nanoTime();
+            }
+        }
+        log.info("Backfill {} at block {}: {} blocks and {} logs in {} ms ({} blocks/s, {} logs/s)", state.toLowerCase(),
+                committedBlock, blocks, logs, TimeUnit.NANOSECONDS.toMillis(finishedNanos - startedNanos),
+                Math.round(blocksPerSecond()), Math.round(logsPerSecond()));
+    }
+
+    boolean isRunning() {
+        return "RUNNING".equals(state);
+    }
+
+    Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("state", state);
+        map.put("fromBlock", fromBlock);
+        map.put("toBlock", toBlock);
+        map.put("committedBlock", committedBlock);
+        map.put("concurrency", concurrency);
+        map.put("chunks", chunks);
+        map.put("blocks", blocks);
+        map.put("logs", logs);
+        map.put("blocksPerSecond", Math.round(blocksPerSecond() * 10) / 10.0);
+        map.put("logsPerSecond", Math.round(logsPerSecond() * 10) / 10.0);
+        map.put("startedAt", startedAt);
+        if (error != null) {
+            map.put("error", error);
+        }
+        return map;
+    }
+
+    private void fail(Throwable cause) {
+        state = "FAILED";
+        error = cause.getMessage();
+    }
+
+    private double blocksPerSecond() {
+        return blocks * 1e9 / elapsedNanos();
+    }
+
+    private double logsPerSecond() {
+        return logs * 1e9 / elapsedNanos();
+    }
+
+    private long elapsedNanos() {
+        long end = finishedNanos != 0 ? finishedNanos : System.nanoTime();
+        return Math.max(1, end - startedNanos);
+    }
+}
@@ -106,6 +106,16 @@ public class BlockchainConsoleService {
         broadcastConsoleMessage(message, ConsoleMessageType.SUCCESS);
     }
 
+    /**
+     * Broadcast the confirmation of a batch of votes read from the chain
+     */
+    public void broadcastVotesConfirmed(int votes, long firstBlock, long lastBlock) {
+        String blocks = firstBlock == lastBlock ? "block #" + firstBlock
+                : "blocks #" + firstBlock + "-#" + lastBlock;
+        String message = String.format("> ✔ %d vote%s confirmed in %s", votes, votes == 1 ? "" : "s", blocks);
+        broadcastConsoleMessage(message, ConsoleMessageType.SUCCESS);
+    }
+
     /**
      * Broadcast transaction error or revert
      */
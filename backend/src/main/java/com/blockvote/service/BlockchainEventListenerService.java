@@ -3,15 +3,15 @@ package com.blockvote.service;
 import com.blockvote.config.BlockchainConfig;
 import com.blockvote.dto.BlockchainVoteEvent;
 import com.blockvote.entity.Candidate;
+import com.blockvote.entity.ListenerCheckpoint;
 import com.blockvote.entity.Vote;
 import com.blockvote.repository.CandidateRepository;
 import com.blockvote.repository.VoteRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.reactivex.disposables.Disposable;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
-import org.springframework.scheduling.annotation.Async;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.web3j.abi.EventEncoder;
 import org.web3j.abi.EventValues;
@@ -22,22 +22,46 @@ import org.web3j.abi.datatypes.Uint;
 import org.web3j.abi.datatypes.generated.Uint256;
 import org.web3j.crypto.Credentials;
 import org.web3j.protocol.Web3j;
-import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.DefaultBlockParameter;
+import org.web3j.protocol.core.Response;
 import org.web3j.protocol.core.methods.request.EthFilter;
+import org.web3j.protocol.core.methods.response.EthBlock;
 import org.web3j.protocol.core.methods.response.EthLog;
 import org.web3j.protocol.core.methods.response.Log;
 import org.web3j.protocol.http.HttpService;
+import org.web3j.protocol.websocket.WebSocketService;
+import org.web3j.protocol.websocket.events.LogNotification;
 import org.web3j.tx.Contract;
 import org.web3j.tx.gas.DefaultGasProvider;
+import org.web3j.utils.Numeric;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
+import java.io.IOException;
 import java.math.BigInteger;
+import java.net.SocketTimeoutException;
 import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 @Service
@@ -52,10 +76,100 @@ public class BlockchainEventListenerService {
     private final SimpMessagingTemplate messagingTemplate;
     private final ObjectMapper objectMapper;
     private final BlockchainConsoleService consoleService;
+    private final ListenerCheckpointService checkpointService;
+    private final VoteBatchWriter voteBatchWriter;
+    private final ElectionContextService electionContextService;
+
+    // Keep catching up for at most this long before yielding to the next poll
+    private static final long CATCH_UP_SLICE_MS = 2000;
+    // Grow a shrunken getLogs range again after this many accepted requests
+    private static final int RANGE_GROW_AFTER = 8;
+    private static final long RATE_WINDOW_NANOS = 10_000_000_000L;
+    // JSON-RPC error code Infura and others return for oversized log queries
+    private static final int LIMIT_EXCEEDED = -32005;
+    // Wallet and transaction keys of recently recorded votes kept to skip repeats without a query
+    private static final int RECENT_VOTES = 100_000;
+    // Subscription drops within this window count towards maxReconnects
+    private static final long RECONNECT_WINDOW_MS = 300_000;
+    private static final String POLLING = "polling";
+    private static final String WEBSOCKET = "websocket";
 
     private Web3j web3j;
+    private ScheduledExecutorService listenerExecutor;
+    private ScheduledFuture<?> nextPoll;
     private final AtomicBoolean isListening = new AtomicBoolean(false);
+    private volatile boolean stopRequested;
     private final AtomicReference<BigInteger> lastProcessedBlock = new AtomicReference<>(BigInteger.ZERO);
+    // Hash of lastProcessedBlock, the parent every next block must name; null if not known
+    private volatile String lastProcessedHash;
+
+    // Adaptive state, only touched by the listener thread
+    private volatile long pollDelayMs;
+    private volatile int blockRange;
+    private int rangeSuccesses;
+    private long rateWindowStart = System.nanoTime();
+    private long rateWindowBlocks;
+
+    // Log subscription, only touched by the listener thread except for the volatile flags
+    private WebSocketService webSocketService;
+    private Disposable subscription;
+    private volatile boolean subscribed;
+    private volatile boolean subscriptionDisabled;
+    private final Deque<Long> subscriptionDropTimes = new ArrayDeque<>();
+    // Recently recorded votes, only touched by the listener thread
+    private final Set<String> recentVotes = Collections.newSetFromMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > RECENT_VOTES;
+        }
+    });
+    // Latest historical backfill run, kept for its statistics
+    private volatile BlockchainBackfill backfill;
+    // Highest block a pushed VoteCast log was seen in
+    private final AtomicReference<BigInteger> pushedBlock = new AtomicReference<>(BigInteger.ZERO);
+
+    // Listener metrics
+    private final AtomicLong polls = new AtomicLong();
+    private final AtomicLong pollErrors = new AtomicLong();
+    private final AtomicLong blocksProcessed = new AtomicLong();
+    private final AtomicLong eventsProcessed = new AtomicLong();
+    private final AtomicLong rangeShrinks = new AtomicLong();
+    private final AtomicLong reorgs = new AtomicLong();
+    private final AtomicLong rolledBackVotes = new AtomicLong();
+    private volatile BigInteger headBlock = BigInteger.ZERO;
+    private volatile BigInteger safeHeadBlock = BigInteger.ZERO;
+    private volatile long lastPollLatencyMs;
+    private volatile long maxPollLatencyMs;
+    private volatile double avgPollLatencyMs;
+    private volatile double blocksPerSecond;
+    private final AtomicLong pushedLogs = new AtomicLong();
+    private final AtomicLong subscriptionDrops = new AtomicLong();
+    // Mined to processed latency of votes, per transport that delivered them
+    private final Map<String, LatencyStats> voteLatency = new ConcurrentHashMap<>();
+
+    // Latency of votes from their block's timestamp to being recorded
+    private static final class LatencyStats {
+        private long count;
+        private long lastMs;
+        private long maxMs;
+        private double avgMs;
+
+        private synchronized void record(long latencyMs) {
+            count++;
+            lastMs = latencyMs;
+            maxMs = Math.max(maxMs, latencyMs);
+            avgMs = count == 1 ? latencyMs : avgMs * 0.9 + latencyMs * 0.1;
+        }
+
+        private synchronized Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("votes", count);
+            map.put("lastMs", lastMs);
+            map.put("avgMs", Math.round(avgMs * 10) / 10.0);
+            map.put("maxMs", maxMs);
+            return map;
+        }
+    }
 
     // Define the VoteCast event signature
     // event VoteCast(address indexed voter, uint candidateId)
@@ -93,14 +207,33 @@ public class BlockchainEventListenerService {
         } catch (Exception e) {
             log.error("Failed to initialize blockchain connection", e);
         }
+
+        // The listener loop runs on its own thread and reschedules itself with an adaptive delay
+        if (web3j != null) {
+            blockRange = Math.max(1, blockchainConfig.getMaxBlockRange());
+            pollDelayMs = blockchainConfig.getPollingInterval();
+            listenerExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "blockchain-listener");
+                thread.setDaemon(true);
+                return thread;
+            });
+            nextPoll = listenerExecutor.schedule(this::runPoll, 0, TimeUnit.MILLISECONDS);
+            if (WEBSOCKET.equalsIgnoreCase(blockchainConfig.getTransport())) {
+                listenerExecutor.execute(this::subscribe);
+            }
+        }
     }
 
     @PreDestroy
     public void cleanup() {
+        isListening.set(false);
+        if (listenerExecutor != null) {
+            listenerExecutor.shutdownNow();
+        }
+        closeSubscription();
         if (web3j != null) {
             web3j.shutdown();
         }
-        isListening.set(false);
     }
 
     /**
@@ -118,96 +251,563 @@ public class BlockchainEventListenerService {
             return;
         }
 
-        isListening.set(true);
+        stopRequested = false;
         log.info("Starting blockchain event listener for contract: {}", contractAddress);
 
-        // Initialize last processed block to current block - maxBlockRange
+        // Resume after the last checkpoint; without one start at the contract's deployment block,
+        // or scan back maxBlockRange blocks if deployed.json does not record it
         try {
-            BigInteger currentBlock = web3j.ethBlockNumber().send().getBlockNumber();
-            BigInteger startBlock = currentBlock.subtract(BigInteger.valueOf(blockchainConfig.getMaxBlockRange()));
-            if (startBlock.compareTo(BigInteger.ZERO) < 0) {
-                startBlock = BigInteger.ZERO;
+            checkpointService.claimLegacyVotes(contractAddress);
+            Optional<ListenerCheckpoint> checkpoint = checkpointService.latest(contractAddress);
+            if (checkpoint.isPresent()) {
+                lastProcessedBlock.set(BigInteger.valueOf(checkpoint.get().getBlockNumber()));
+                lastProcessedHash = checkpoint.get().getBlockHash();
+                log.info("Resuming event processing after checkpoint block: {}", lastProcessedBlock.get());
+            } else {
+                BigInteger startBlock;
+                Long deploymentBlock = contractInfoService.getDeploymentBlock();
+                if (deploymentBlock != null) {
+                    startBlock = BigInteger.valueOf(deploymentBlock - 1);
+                } else {
+                    BigInteger currentBlock = web3j.ethBlockNumber().send().getBlockNumber();
+                    startBlock = currentBlock.subtract(BigInteger.valueOf(blockchainConfig.getMaxBlockRange()));
+                    log.warn("No checkpoint or deployment block found, earlier events will not be processed");
+                }
+                startBlock = startBlock.max(BigInteger.ZERO);
+                EthBlock.Block block = getBlock(startBlock);
+                lastProcessedBlock.set(startBlock);
+                lastProcessedHash = block == null ? null : block.getHash();
+                log.info("Starting event processing from block: {}", startBlock);
             }
-            lastProcessedBlock.set(startBlock);
-            log.info("Starting event processing from block: {}", startBlock);
         } catch (Exception e) {
-            log.error("Failed to get current block number", e);
+            log.error("Failed to initialize the starting block", e);
             lastProcessedBlock.set(BigInteger.ZERO);
+            lastProcessedHash = null;
         }
+        isListening.set(true);
     }
 
     /**
      * Stop listening for blockchain events
      */
     public void stopListening() {
+        stopRequested = true;
         isListening.set(false);
         log.info("Blockchain event listener stopped");
     }
 
+    // One turn of the listener loop: poll, then schedule the next turn
+    private void runPoll() {
+        long delay;
+        try {
+            delay = poll();
+        } catch (Exception e) {
+            pollErrors.incrementAndGet();
+            log.error("Error polling for blockchain events: {}", e.getMessage());
+            delay = idleDelay();
+        }
+        // Pushed logs trigger the next poll while subscribed, polls in between only move the
+        // checkpoint over blocks without votes - unless a pushed vote still waits for confirmations
+        if (subscribed && delay > 0 && pushedBlock.get().compareTo(lastProcessedBlock.get()) <= 0) {
+            delay = blockchainConfig.getMaxPollingInterval();
+        }
+        pollDelayMs = delay;
+
+        try {
+            nextPoll = listenerExecutor.schedule(this::runPoll, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            log.debug("Blockchain listener shut down");
+        }
+    }
+
+    // Run the next poll now instead of at its scheduled time
+    private void wakeUp() {
+        try {
+            listenerExecutor.execute(() -> {
+                if (nextPoll != null && nextPoll.cancel(false)) {
+                    runPoll();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("Blockchain listener shut down");
+        }
+    }
+
     /**
-     * Scheduled method to poll for new events
+     * Subscribe to the contract's VoteCast logs over WebSocket. Every pushed log wakes the
+     * listener loop, which reads the new blocks through eth_getLogs as usual - so confirmations,
+     * checkpoints and reorg handling stay the same, and blocks missed while the socket was down
+     * are backfilled in bounded ranges from the last checkpoint.
      */
-    @Scheduled(fixedDelayString = "#{@blockchainConfig.pollingInterval}")
-    @Async
-    public void pollForEvents() {
-        if (!blockchainConfig.getEnabled() || !isListening.get()) {
+    private void subscribe() {
+        String contractAddress = contractInfoService.getContractAddress();
+        if (contractAddress == null || subscriptionDisabled) {
+            if (contractAddress == null) {
+                listenerExecutor.schedule(this::subscribe, blockchainConfig.getPollingInterval(), TimeUnit.MILLISECONDS);
+            }
             return;
         }
 
+        WebSocketService service = new WebSocketService(blockchainConfig.getWsUrl(), false);
         try {
-            String contractAddress = contractInfoService.getContractAddress();
-            if (contractAddress == null) {
-                // Check if contract becomes available
-                if (contractInfoService.isContractDeployed()) {
-                    startListening();
-                }
-                return;
-            }
+            service.connect();
+            webSocketService = service;
+            subscription = Web3j.build(service)
+                    .logsNotifications(List.of(contractAddress), List.of(EventEncoder.encode(VOTE_CAST_EVENT)))
+                    .subscribe(this::onPushedLog,
+                            e -> onSubscriptionDropped(service, e),
+                            () -> onSubscriptionDropped(service, new IOException("Subscription closed")));
+            subscribed = true;
+            log.info("Subscribed to VoteCast logs at {}", blockchainConfig.getWsUrl());
+            // Catch up on whatever was mined while not subscribed
+            wakeUp();
+        } catch (Exception e) {
+            service.close();
+            handleSubscriptionDrop(service, e);
+        }
+    }
 
-            // Get current block
-            BigInteger currentBlock = web3j.ethBlockNumber().send().getBlockNumber();
-            BigInteger fromBlock = lastProcessedBlock.get().add(BigInteger.ONE);
+    private void onPushedLog(LogNotification notification) {
+        pushedLogs.incrementAndGet();
+        String blockNumber = notification.getParams().getResult().getBlockNumber();
+        if (blockNumber != null) {
+            BigInteger block = Numeric.decodeQuantity(blockNumber);
+            pushedBlock.accumulateAndGet(block, BigInteger::max);
+        }
+        wakeUp();
+    }
 
-            if (fromBlock.compareTo(currentBlock) > 0) {
-                // No new blocks to process
-                return;
+    private void onSubscriptionDropped(WebSocketService service, Throwable error) {
+        try {
+            listenerExecutor.execute(() -> handleSubscriptionDrop(service, error));
+        } catch (RejectedExecutionException e) {
+            log.debug("Blockchain listener shut down");
+        }
+    }
+
+    // Reconnect with a growing delay, or fall back to polling after maxReconnects recent drops
+    private void handleSubscriptionDrop(WebSocketService service, Throwable error) {
+        if (webSocketService != null && service != webSocketService) {
+            return; // a late callback of a connection already replaced
+        }
+        closeSubscription();
+        subscriptionDrops.incrementAndGet();
+
+        long now = System.currentTimeMillis();
+        subscriptionDropTimes.addLast(now);
+        while (now - subscriptionDropTimes.peekFirst() > RECONNECT_WINDOW_MS) {
+            subscriptionDropTimes.removeFirst();
+        }
+        int recentDrops = subscriptionDropTimes.size();
+        if (recentDrops > blockchainConfig.getMaxReconnects()) {
+            subscriptionDisabled = true;
+            log.warn("Log subscription dropped {} times in {} s, falling back to polling: {}",
+                    recentDrops, RECONNECT_WINDOW_MS / 1000, error.getMessage());
+            wakeUp();
+            return;
+        }
+
+        long delay = Math.min(blockchainConfig.getMaxPollingInterval(),
+                blockchainConfig.getPollingInterval() << Math.min(10, recentDrops - 1));
+        log.warn("Log subscription dropped ({}), reconnecting in {} ms", error.getMessage(), delay);
+        // Poll meanwhile so votes keep flowing
+        wakeUp();
+        listenerExecutor.schedule(this::subscribe, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void closeSubscription() {
+        subscribed = false;
+        if (subscription != null) {
+            subscription.dispose();
+            subscription = null;
+        }
+        if (webSocketService != null) {
+            webSocketService.close();
+            webSocketService = null;
+        }
+    }
+
+    /**
+     * Fetch and process the VoteCast events of the new blocks with at least the configured
+     * number of confirmations, at most blockRange blocks per eth_getLogs request. Each range must
+     * continue the hash chain of the last checkpoint, otherwise the chain reorganized and the
+     * votes above the fork point are rolled back first. Returns the delay before the next poll:
+     * short while blocks carry votes, the polling interval while blocks arrive without votes,
+     * growing exponentially while the chain is idle, and zero while still catching up.
+     */
+    private long poll() throws Exception {
+        if (!isListening.get()) {
+            // Start once the contract becomes available, unless stopped on purpose
+            if (!stopRequested && contractInfoService.isContractDeployed()) {
+                startListening();
+            }
+            if (!isListening.get()) {
+                return idleDelay();
             }
+        }
 
-            // Create filter for VoteCast events
-            EthFilter filter = new EthFilter(
-                    org.web3j.protocol.core.DefaultBlockParameter.valueOf(fromBlock),
-                    org.web3j.protocol.core.DefaultBlockParameter.valueOf(currentBlock),
-                    contractAddress);
+        String contractAddress = contractInfoService.getContractAddress();
+        if (contractAddress == null) {
+            return idleDelay();
+        }
 
-            // Add event signature to filter
-            filter.addSingleTopic(EventEncoder.encode(VOTE_CAST_EVENT));
+        long started = System.nanoTime();
+        headBlock = web3j.ethBlockNumber().send().getBlockNumber();
+        BigInteger head = headBlock.subtract(BigInteger.valueOf(blockchainConfig.getConfirmations()));
+        safeHeadBlock = head.max(BigInteger.ZERO);
+        BigInteger from = lastProcessedBlock.get().add(BigInteger.ONE);
+        if (from.compareTo(head) > 0) {
+            // No new blocks to process
+            recordPoll(started, 0);
+            return idleDelay();
+        }
 
-            // Get logs
-            EthLog ethLog = web3j.ethGetLogs(filter).send();
-            List<EthLog.LogResult> logs = ethLog.getLogs();
+        // Far behind: catch up with concurrent requests, then continue with the regular loop
+        if (head.subtract(from).compareTo(BigInteger.valueOf(2L * blockRange)) >= 0) {
+            BlockchainBackfill run = new BlockchainBackfill(from, head, blockchainConfig.getBackfillConcurrency(),
+                    () -> blockRange);
+            backfill = run;
+            run.run((chunkFrom, chunkTo) -> fetchChunk(contractAddress, chunkFrom, chunkTo),
+                    chunk -> commitChunk(contractAddress, chunk), isListening::get);
+            recordPoll(started, lastProcessedBlock.get().subtract(from).longValue() + 1);
+            return 0;
+        }
 
-            if (!logs.isEmpty()) {
-                log.info("Found {} VoteCast events to process", logs.size());
+        long deadline = started + TimeUnit.MILLISECONDS.toNanos(CATCH_UP_SLICE_MS);
+        long blocks = 0;
+        int events = 0;
+        boolean stalled = false;
+        while (from.compareTo(head) <= 0 && isListening.get() && System.nanoTime() < deadline) {
+            BigInteger to = head.min(from.add(BigInteger.valueOf(blockRange - 1L)));
 
-                for (EthLog.LogResult logResult : logs) {
-                    if (logResult instanceof EthLog.LogObject) {
-                        processVoteCastEvent((Log) logResult.get());
+            EthBlock.Block first = getBlock(from);
+            if (first == null) {
+                stalled = true;
+                break;
+            }
+            if (lastProcessedHash != null && !lastProcessedHash.equalsIgnoreCase(first.getParentHash())) {
+                handleReorg(contractAddress);
+                recordPoll(started, blocks);
+                eventsProcessed.addAndGet(events);
+                return 0;
+            }
+
+            EthBlock.Block last = getBlock(to);
+            if (last == null) {
+                stalled = true;
+                break;
+            }
+            List<Log> logs = getLogs(contractAddress, from, to);
+            if (logs == null) {
+                shrinkRange(from, to);
+                continue;
+            }
+            growRange();
+
+            // The logs must come from the chain the checkpoint hashes describe; if it moved
+            // meanwhile, retry on the next poll, where the parent hash check sees the reorg
+            EthBlock.Block lastAgain = getBlock(to);
+            if (lastAgain == null || !last.getHash().equalsIgnoreCase(lastAgain.getHash())
+                    || !fromChain(logs, first, last)) {
+                log.warn("Chain changed while reading blocks {}-{}, retrying", from, to);
+                stalled = true;
+                break;
+            }
+
+            if (!logs.isEmpty()) {
+                log.info("Found {} VoteCast events to process in blocks {}-{}", logs.size(), from, to);
+                List<BlockchainVoteEvent> votes = new ArrayList<>(logs.size());
+                for (Log eventLog : logs) {
+                    BlockchainVoteEvent vote = decodeVoteCastEvent(eventLog);
+                    if (vote != null) {
+                        votes.add(vote);
                     }
                 }
+                recordVoteEvents(votes);
+                String transport = subscribed ? WEBSOCKET : POLLING;
+                votes.forEach(vote -> recordLatency(transport, vote.getBlockNumber(), first, last));
+                events += logs.size();
             }
 
-            // Update last processed block
-            lastProcessedBlock.set(currentBlock);
+            // Update last processed block, durably first so a restart resumes after it
+            checkpointService.save(contractAddress, to.longValue(), last.getHash());
+            lastProcessedBlock.set(to);
+            lastProcessedHash = last.getHash();
+            blocks += to.subtract(from).longValue() + 1;
+            from = to.add(BigInteger.ONE);
+        }
+        recordPoll(started, blocks);
+        eventsProcessed.addAndGet(events);
+
+        if (stalled) {
+            return blockchainConfig.getMinPollingInterval();
+        }
+        if (from.compareTo(head) <= 0) {
+            return 0;
+        }
+        return events > 0 ? blockchainConfig.getMinPollingInterval() : blockchainConfig.getPollingInterval();
+    }
 
+    /**
+     * Process the contract's logs again from fromBlock on, e.g. history from before the listener
+     * was first started; the listener then backfills up to the head. Votes already recorded are
+     * recognized by their transaction hash and skipped.
+     */
+    public void requestBackfill(long fromBlock) {
+        if (!isListening.get() || listenerExecutor == null) {
+            throw new RuntimeException("Blockchain listener is not running");
+        }
+        if (fromBlock < 0) {
+            throw new RuntimeException("fromBlock must not be negative");
+        }
+        BlockchainBackfill running = backfill;
+        if (running != null && running.isRunning()) {
+            throw new RuntimeException("A backfill is already running");
+        }
+        listenerExecutor.execute(() -> rewind(fromBlock));
+        wakeUp();
+    }
+
+    // Move the checkpoint back to just before fromBlock, on the listener thread
+    private void rewind(long fromBlock) {
+        try {
+            String contractAddress = contractInfoService.getContractAddress();
+            BigInteger start = BigInteger.valueOf(fromBlock).subtract(BigInteger.ONE).max(BigInteger.ZERO);
+            if (contractAddress == null || start.compareTo(lastProcessedBlock.get()) >= 0) {
+                log.info("Backfill from block {} requested, nothing to reprocess", fromBlock);
+                return;
+            }
+            EthBlock.Block block = getBlock(start);
+            if (block == null) {
+                throw new IOException("Node does not have block " + start);
+            }
+            checkpointService.rewind(contractAddress, start.longValue(), block.getHash());
+            lastProcessedBlock.set(start);
+            lastProcessedHash = block.getHash();
+            log.info("Listener rewound to block {} for a backfill", start);
         } catch (Exception e) {
-            log.error("Error polling for blockchain events", e);
+            log.error("Failed to rewind the listener to block {}: {}", fromBlock, e.getMessage());
         }
     }
 
+    // Fetch and decode one backfill chunk; runs on a virtual thread
+    private BlockchainBackfill.Chunk fetchChunk(String contractAddress, BigInteger from, BigInteger to)
+            throws IOException {
+        EthBlock.Block first = getBlock(from);
+        EthBlock.Block last = getBlock(to);
+        if (first == null || last == null) {
+            throw new IOException("Node does not have blocks " + from + "-" + to);
+        }
+        List<Log> logs = getLogsSplitting(contractAddress, from, to);
+        EthBlock.Block lastAgain = getBlock(to);
+        if (lastAgain == null || !last.getHash().equalsIgnoreCase(lastAgain.getHash())
+                || !fromChain(logs, first, last)) {
+            throw new IOException("Chain changed while reading blocks " + from + "-" + to);
+        }
+
+        logs.sort(Comparator.comparing(Log::getBlockNumber).thenComparing(Log::getLogIndex));
+        List<BlockchainVoteEvent> votes = new ArrayList<>(logs.size());
+        for (Log eventLog : logs) {
+            BlockchainVoteEvent vote = decodeVoteCastEvent(eventLog);
+            if (vote != null) {
+                votes.add(vote);
+            }
+        }
+        return new BlockchainBackfill.Chunk(from, to, first, last, votes);
+    }
+
+    // Record a backfill chunk on the listener thread, in block order
+    private boolean commitChunk(String contractAddress, BlockchainBackfill.Chunk chunk) {
+        if (lastProcessedHash != null && !lastProcessedHash.equalsIgnoreCase(chunk.first().getParentHash())) {
+            log.warn("Backfill chunk {}-{} does not continue block {}, stopping the backfill",
+                    chunk.from(), chunk.to(), lastProcessedBlock.get());
+            return false;
+        }
+        recordVoteEvents(chunk.votes());
+        checkpointService.save(contractAddress, chunk.to().longValue(), chunk.last().getHash());
+        lastProcessedBlock.set(chunk.to());
+        lastProcessedHash = chunk.last().getHash();
+        eventsProcessed.addAndGet(chunk.votes().size());
+        return true;
+    }
+
+    // eth_getLogs over [from, to], halving ranges the node rejects until it accepts them
+    private List<Log> getLogsSplitting(String contractAddress, BigInteger from, BigInteger to) throws IOException {
+        List<Log> logs = getLogs(contractAddress, from, to);
+        if (logs != null) {
+            return logs;
+        }
+        BigInteger middle = from.add(to).shiftRight(1);
+        rangeShrinks.incrementAndGet();
+        blockRange = Math.max(1, Math.min(blockRange, middle.subtract(from).intValue() + 1));
+        List<Log> all = getLogsSplitting(contractAddress, from, middle);
+        all.addAll(getLogsSplitting(contractAddress, middle.add(BigInteger.ONE), to));
+        return all;
+    }
+
     /**
-     * Process a single VoteCast event
+     * Find the newest checkpoint still on the node's chain and roll back everything above it
      */
-    private void processVoteCastEvent(Log eventLog) {
+    private void handleReorg(String contractAddress) throws IOException {
+        List<ListenerCheckpoint> history = checkpointService.history(contractAddress);
+        BigInteger fork = null;
+        for (ListenerCheckpoint checkpoint : history) {
+            EthBlock.Block block = getBlock(BigInteger.valueOf(checkpoint.getBlockNumber()));
+            if (block != null && block.getHash().equalsIgnoreCase(checkpoint.getBlockHash())) {
+                fork = BigInteger.valueOf(checkpoint.getBlockNumber());
+                break;
+            }
+        }
+        if (fork == null) {
+            // Deeper than the checkpoint history: start over below the oldest known block
+            BigInteger oldest = history.isEmpty() ? lastProcessedBlock.get()
+                    : BigInteger.valueOf(history.get(history.size() - 1).getBlockNumber());
+            fork = oldest.subtract(BigInteger.ONE).max(BigInteger.ZERO);
+            log.error("Chain reorganization deeper than the checkpoint history, reprocessing from block {}", fork);
+        }
+
+        int removed = checkpointService.rollback(contractAddress, fork.longValue());
+        // Rolled back transactions may be included again on the new chain
+        recentVotes.clear();
+        EthBlock.Block forkBlock = getBlock(fork);
+        lastProcessedBlock.set(fork);
+        lastProcessedHash = forkBlock == null ? null : forkBlock.getHash();
+        reorgs.incrementAndGet();
+        rolledBackVotes.addAndGet(removed);
+        log.warn("Chain reorganization detected, rolled back {} votes above block {}", removed, fork);
+    }
+
+    /**
+     * Header of a block, or null if the node does not have it
+     */
+    private EthBlock.Block getBlock(BigInteger number) throws IOException {
+        EthBlock response = web3j.ethGetBlockByNumber(DefaultBlockParameter.valueOf(number), false).send();
+        if (response.hasError()) {
+            throw new IOException("eth_getBlockByNumber failed for block " + number + ": "
+                    + response.getError().getMessage());
+        }
+        return response.getBlock();
+    }
+
+    // Logs in the first and last block of the range must carry those blocks' hashes
+    private static boolean fromChain(List<Log> logs, EthBlock.Block first, EthBlock.Block last) {
+        for (Log eventLog : logs) {
+            if (eventLog.getBlockNumber().equals(first.getNumber())
+                    && !first.getHash().equalsIgnoreCase(eventLog.getBlockHash())) {
+                return false;
+            }
+            if (eventLog.getBlockNumber().equals(last.getNumber())
+                    && !last.getHash().equalsIgnoreCase(eventLog.getBlockHash())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * VoteCast logs of the contract in [from, to], or null if the node rejected the range as too large
+     */
+    private List<Log> getLogs(String contractAddress, BigInteger from, BigInteger to) throws IOException {
+        // Create filter for VoteCast events
+        EthFilter filter = new EthFilter(DefaultBlockParameter.valueOf(from), DefaultBlockParameter.valueOf(to),
+                contractAddress);
+        filter.addSingleTopic(EventEncoder.encode(VOTE_CAST_EVENT));
+
+        EthLog ethLog;
+        try {
+            ethLog = web3j.ethGetLogs(filter).send();
+        } catch (SocketTimeoutException e) {
+            // A response too large to produce in time
+            if (to.compareTo(from) > 0) {
+                return null;
+            }
+            throw e;
+        }
+
+        if (ethLog.hasError()) {
+            Response.Error error = ethLog.getError();
+            if (to.compareTo(from) > 0 && isRangeError(error)) {
+                return null;
+            }
+            throw new IOException("eth_getLogs failed for blocks " + from + "-" + to + ": " + error.getMessage());
+        }
+
+        List<Log> logs = new ArrayList<>();
+        for (EthLog.LogResult<?> logResult : ethLog.getLogs()) {
+            if (logResult instanceof EthLog.LogObject logObject) {
+                logs.add(logObject.get());
+            }
+        }
+        return logs;
+    }
+
+    // Providers word it differently: "query returned more than 10000 results", "block range is
+    // too large", "Log response size exceeded", "limit exceeded"
+    private static boolean isRangeError(Response.Error error) {
+        String message = error.getMessage() == null ? "" : error.getMessage().toLowerCase();
+        return error.getCode() == LIMIT_EXCEEDED
+                || message.contains("range")
+                || message.contains("more than")
+                || message.contains("too large")
+                || message.contains("too many")
+                || message.contains("exceed")
+                || message.contains("limit");
+    }
+
+    private void shrinkRange(BigInteger from, BigInteger to) {
+        int requested = to.subtract(from).intValue() + 1;
+        blockRange = Math.max(1, requested / 2);
+        rangeSuccesses = 0;
+        rangeShrinks.incrementAndGet();
+        log.warn("Node rejected eth_getLogs over {} blocks from {}, retrying with {} blocks",
+                requested, from, blockRange);
+    }
+
+    private void growRange() {
+        int max = Math.max(1, blockchainConfig.getMaxBlockRange());
+        if (blockRange < max && ++rangeSuccesses >= RANGE_GROW_AFTER) {
+            blockRange = Math.min(max, blockRange * 2);
+            rangeSuccesses = 0;
+        }
+    }
+
+    // Exponential backoff from the polling interval up to the maximum
+    private long idleDelay() {
+        long base = blockchainConfig.getPollingInterval();
+        return Math.min(blockchainConfig.getMaxPollingInterval(), Math.max(base, pollDelayMs * 2));
+    }
+
+    // Only the first and last block's timestamps are at hand; those are the fresh ones while live
+    private void recordLatency(String transport, BigInteger blockNumber, EthBlock.Block first, EthBlock.Block last) {
+        EthBlock.Block block = blockNumber.equals(last.getNumber()) ? last
+                : blockNumber.equals(first.getNumber()) ? first : null;
+        if (block != null) {
+            long latencyMs = System.currentTimeMillis() - block.getTimestamp().longValueExact() * 1000;
+            voteLatency.computeIfAbsent(transport, t -> new LatencyStats()).record(Math.max(0, latencyMs));
+        }
+    }
+
+    private void recordPoll(long startedNanos, long blocks) {
+        long now = System.nanoTime();
+        long latencyMs = TimeUnit.NANOSECONDS.toMillis(now - startedNanos);
+        polls.incrementAndGet();
+        lastPollLatencyMs = latencyMs;
+        maxPollLatencyMs = Math.max(maxPollLatencyMs, latencyMs);
+        avgPollLatencyMs = avgPollLatencyMs == 0 ? latencyMs : avgPollLatencyMs * 0.9 + latencyMs * 0.1;
+
+        blocksProcessed.addAndGet(blocks);
+        rateWindowBlocks += blocks;
+        if (now - rateWindowStart >= RATE_WINDOW_NANOS) {
+            blocksPerSecond = rateWindowBlocks * 1e9 / (now - rateWindowStart);
+            rateWindowStart = now;
+            rateWindowBlocks = 0;
+        }
+    }
+
+    /**
+     * Decode a VoteCast log, or null if it is malformed
+     */
+    private BlockchainVoteEvent decodeVoteCastEvent(Log eventLog) {
         try {
             // Decode the event
             EventValues eventValues = Contract.staticExtractEventParameters(VOTE_CAST_EVENT, eventLog);
@@ -215,7 +815,7 @@ public class BlockchainEventListenerService {
             if (eventValues == null || eventValues.getIndexedValues().size() < 1
                     || eventValues.getNonIndexedValues().size() < 1) {
                 log.warn("Invalid VoteCast event format");
-                return;
+                return null;
             }
 
             // Extract voter address (indexed parameter)
@@ -227,7 +827,7 @@ public class BlockchainEventListenerService {
             String voter = voterAddress.getValue();
             BigInteger candidateIdBig = candidateId.getValue();
 
-            log.info("Processing VoteCast event: voter={}, candidateId={}, txHash={}",
+            log.debug("Decoded VoteCast event: voter={}, candidateId={}, txHash={}",
                     voter, candidateIdBig, eventLog.getTransactionHash());
 
             // Create blockchain vote event DTO
@@ -236,108 +836,150 @@ public class BlockchainEventListenerService {
             voteEvent.setCandidateId(candidateIdBig);
             voteEvent.setTransactionHash(eventLog.getTransactionHash());
             voteEvent.setBlockNumber(eventLog.getBlockNumber());
-            voteEvent.setProcessedAt(LocalDateTime.now());
             voteEvent.setGasUsed(BigInteger.ZERO); // Can be fetched from transaction receipt if needed
             voteEvent.setLogIndex(eventLog.getLogIndex());
-
-            // Check if this vote was already processed
-            if (voteRepository.existsByWalletAddressAndTransactionHash(voter, eventLog.getTransactionHash())) {
-                log.info("Vote already processed for transaction: {}", eventLog.getTransactionHash());
-                return;
-            }
-
-            // Update database
-            updateDatabaseWithVote(voteEvent);
-
-            // Broadcast WebSocket event
-            broadcastVoteEvent(voteEvent);
-
-            // Broadcast to console
-            consoleService.broadcastVoteTransactionSubmitted(
-                    voteEvent.getCandidateName(),
-                    voteEvent.getTransactionHash());
-            consoleService.broadcastTransactionConfirmed(
-                    voteEvent.getTransactionHash(),
-                    voteEvent.getBlockNumber().longValue());
+            voteEvent.setContractAddress(eventLog.getAddress());
+            return voteEvent;
 
         } catch (Exception e) {
-            log.error("Error processing VoteCast event", e);
+            log.error("Error decoding VoteCast event", e);
             consoleService.broadcastTransactionError(
                     eventLog.getTransactionHash(),
                     "Processing failed: " + e.getMessage());
+            return null;
         }
     }
 
     /**
-     * Update PostgreSQL database with the blockchain vote
+     * Record the VoteCast events of one eth_getLogs response as a batch: transactions recorded
+     * before are skipped through the set of recently recorded votes and one IN query, candidates
+     * are loaded with one query, the votes and counters are written in one transaction and the
+     * batch is broadcast once. A failure leaves nothing recorded and fails the poll, so the same
+     * blocks are read again.
      */
-    private void updateDatabaseWithVote(BlockchainVoteEvent voteEvent) {
-        try {
-            Long candidateId = voteEvent.getCandidateId().longValue();
+    private void recordVoteEvents(List<BlockchainVoteEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+
+        // Same key as the original per-vote check: wallet address and transaction hash
+        Map<String, BlockchainVoteEvent> fresh = new LinkedHashMap<>();
+        for (BlockchainVoteEvent event : events) {
+            String key = voteKey(event.getVoterAddress(), event.getTransactionHash());
+            if (!recentVotes.contains(key)) {
+                fresh.putIfAbsent(key, event);
+            }
+        }
+        if (!fresh.isEmpty()) {
+            Set<String> hashes = new HashSet<>();
+            fresh.values().forEach(event -> hashes.add(event.getTransactionHash()));
+            voteRepository.findWalletTransactionKeys(hashes).forEach(fresh::remove);
+        }
+        if (fresh.size() < events.size()) {
+            log.info("Skipped {} VoteCast events already recorded", events.size() - fresh.size());
+        }
+        if (fresh.isEmpty()) {
+            return;
+        }
+
+        Set<Long> candidateIds = new HashSet<>();
+        fresh.values().forEach(event -> candidateIds.add(event.getCandidateId().longValue()));
+        Map<Long, Candidate> candidates = new HashMap<>();
+        candidateRepository.findAllById(candidateIds).forEach(c -> candidates.put(c.getId(), c));
 
-            // Find candidate
-            Optional<Candidate> candidateOpt = candidateRepository.findById(candidateId);
-            if (candidateOpt.isEmpty()) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Vote> votes = new ArrayList<>(fresh.size());
+        List<BlockchainVoteEvent> recorded = new ArrayList<>(fresh.size());
+        List<String> recordedKeys = new ArrayList<>(fresh.size());
+        fresh.forEach((key, event) -> {
+            Long candidateId = event.getCandidateId().longValue();
+            Candidate candidate = candidates.get(candidateId);
+            if (candidate == null) {
                 log.error("Candidate not found with ID: {}", candidateId);
                 return;
             }
+            event.setProcessedAt(now);
+            event.setCandidateName(candidate.getName());
 
-            Candidate candidate = candidateOpt.get();
-
-            // Create vote record
             Vote vote = new Vote();
             vote.setVoterMobile("BLOCKCHAIN_VOTE"); // Special marker for blockchain votes
             vote.setCandidateId(candidateId);
-            vote.setWalletAddress(voteEvent.getVoterAddress());
-            vote.setVotedAt(voteEvent.getProcessedAt());
-            vote.setTransactionHash(voteEvent.getTransactionHash());
-            vote.setBlockNumber(voteEvent.getBlockNumber().longValue());
-
-            voteRepository.save(vote);
-
-            // Update candidate vote count
-            candidate.setVoteCount(candidate.getVoteCount() + 1);
-            candidateRepository.save(candidate);
-
-            // Store candidate name for broadcasting
-            voteEvent.setCandidateName(candidate.getName());
-
-            log.info("Database updated: candidate {} now has {} votes",
-                    candidate.getName(), candidate.getVoteCount());
+            vote.setElectionId(candidate.getElectionId());
+            if (candidate.getElectionId() != null) {
+                vote.setVotingRound(electionContextService.get(candidate.getElectionId()).votingRound());
+            }
+            vote.setWalletAddress(event.getVoterAddress());
+            vote.setVotedAt(now);
+            vote.setTransactionHash(event.getTransactionHash());
+            vote.setBlockNumber(event.getBlockNumber().longValue());
+            vote.setContractAddress(event.getContractAddress() == null ? null
+                    : event.getContractAddress().toLowerCase());
+            votes.add(vote);
+            recorded.add(event);
+            recordedKeys.add(key);
+        });
+        if (votes.isEmpty()) {
+            return;
+        }
 
+        try {
+            voteBatchWriter.writeChainBatch(votes);
         } catch (Exception e) {
-            log.error("Error updating database with blockchain vote", e);
+            consoleService.broadcastBlockchainActivity("⚠ Recording " + votes.size()
+                    + " blockchain votes failed: " + e.getMessage());
+            throw new RuntimeException("Failed to record " + votes.size() + " blockchain votes: " + e.getMessage(), e);
         }
+        recentVotes.addAll(recordedKeys);
+        log.info("Database updated: {} blockchain votes recorded", votes.size());
+
+        broadcastVoteEvents(recorded);
+    }
+
+    private static String voteKey(String walletAddress, String transactionHash) {
+        return walletAddress + ":" + transactionHash;
     }
 
     /**
-     * Broadcast vote confirmation via WebSocket
+     * Broadcast a batch of vote confirmations via WebSocket, one message per topic
      */
-    private void broadcastVoteEvent(BlockchainVoteEvent voteEvent) {
+    private void broadcastVoteEvents(List<BlockchainVoteEvent> voteEvents) {
         try {
-            // Sanitize wallet address (show first 6 and last 4 characters)
-            String sanitizedAddress = voteEvent.getVoterAddress().substring(0, 6) + "..." +
-                    voteEvent.getVoterAddress().substring(voteEvent.getVoterAddress().length() - 4);
+            List<Map<String, Object>> votes = new ArrayList<>(voteEvents.size());
+            for (BlockchainVoteEvent voteEvent : voteEvents) {
+                // Sanitize wallet address (show first 6 and last 4 characters)
+                String sanitizedAddress = voteEvent.getVoterAddress().substring(0, 6) + "..." +
+                        voteEvent.getVoterAddress().substring(voteEvent.getVoterAddress().length() - 4);
+
+                Map<String, Object> vote = new HashMap<>();
+                vote.put("type", "VOTE_CAST_BLOCKCHAIN");
+                vote.put("walletAddress", sanitizedAddress);
+                vote.put("candidateName", voteEvent.getCandidateName());
+                vote.put("candidateId", voteEvent.getCandidateId().longValue());
+                vote.put("transactionHash", voteEvent.getTransactionHash());
+                vote.put("blockNumber", voteEvent.getBlockNumber().longValue());
+                vote.put("timestamp", voteEvent.getProcessedAt().toString());
+                votes.add(vote);
+            }
 
             // Create message payload
-            var message = new java.util.HashMap<String, Object>();
-            message.put("type", "VOTE_CAST_BLOCKCHAIN");
-            message.put("walletAddress", sanitizedAddress);
-            message.put("candidateName", voteEvent.getCandidateName());
-            message.put("candidateId", voteEvent.getCandidateId().longValue());
-            message.put("transactionHash", voteEvent.getTransactionHash());
-            message.put("blockNumber", voteEvent.getBlockNumber().longValue());
-            message.put("timestamp", voteEvent.getProcessedAt().toString());
+            Map<String, Object> message = new HashMap<>();
+            message.put("type", "VOTE_CAST_BLOCKCHAIN_BATCH");
+            message.put("count", votes.size());
+            message.put("votes", votes);
 
             // Broadcast to both general and admin activity topics
             messagingTemplate.convertAndSend("/topic/activities", message);
             messagingTemplate.convertAndSend("/topic/admin/activities", message);
 
-            log.info("Broadcasted blockchain vote event: {} voted for {} via WebSocket",
-                    sanitizedAddress, voteEvent.getCandidateName());
+            // Broadcast to console
+            consoleService.broadcastVotesConfirmed(voteEvents.size(),
+                    voteEvents.get(0).getBlockNumber().longValue(),
+                    voteEvents.get(voteEvents.size() - 1).getBlockNumber().longValue());
+
+            log.info("Broadcasted {} blockchain vote events via WebSocket", votes.size());
 
         } catch (Exception e) {
-            log.error("Error broadcasting vote event via WebSocket", e);
+            log.error("Error broadcasting vote events via WebSocket", e);
         }
     }
 
@@ -354,4 +996,43 @@ public class BlockchainEventListenerService {
     public BigInteger getLastProcessedBlock() {
         return lastProcessedBlock.get();
     }
+
+    /**
+     * Listener loop metrics: poll latency, processing rate, current range and interval
+     */
+    public Map<String, Object> getStats() {
+        BigInteger processed = lastProcessedBlock.get();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("listening", isListening.get());
+        stats.put("headBlock", headBlock);
+        stats.put("lastProcessedBlock", processed);
+        stats.put("lagBlocks", headBlock.subtract(processed).max(BigInteger.ZERO));
+        stats.put("confirmations", blockchainConfig.getConfirmations());
+        stats.put("safeHeadBlock", safeHeadBlock);
+        stats.put("reorgs", reorgs.get());
+        stats.put("rolledBackVotes", rolledBackVotes.get());
+        stats.put("polls", polls.get());
+        stats.put("pollErrors", pollErrors.get());
+        stats.put("lastPollLatencyMs", lastPollLatencyMs);
+        stats.put("avgPollLatencyMs", Math.round(avgPollLatencyMs * 10) / 10.0);
+        stats.put("maxPollLatencyMs", maxPollLatencyMs);
+        stats.put("blocksPerSecond", Math.round(blocksPerSecond * 10) / 10.0);
+        stats.put("blocksProcessed", blocksProcessed.get());
+        stats.put("eventsProcessed", eventsProcessed.get());
+        stats.put("blockRange", blockRange);
+        stats.put("rangeShrinks", rangeShrinks.get());
+        stats.put("pollIntervalMs", pollDelayMs);
+        stats.put("transport", subscribed ? WEBSOCKET : POLLING);
+        stats.put("subscriptionFallback", subscriptionDisabled);
+        stats.put("subscriptionDrops", subscriptionDrops.get());
+        stats.put("pushedLogs", pushedLogs.get());
+        Map<String, Object> latency = new LinkedHashMap<>();
+        voteLatency.forEach((transport, latencyStats) -> latency.put(transport, latencyStats.toMap()));
+        stats.put("voteLatency", latency);
+        BlockchainBackfill lastBackfill = backfill;
+        if (lastBackfill != null) {
+            stats.put("backfill", lastBackfill.toMap());
+        }
+        return stats;
+    }
 }
\ No newline at end of file
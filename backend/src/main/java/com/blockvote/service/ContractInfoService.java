@@ -64,6 +64,26 @@ public class ContractInfoService {
         }
     }
 
+    /**
+     * Get the block the contract was deployed in, or null if deployed.json does not record it
+     */
+    public Long getDeploymentBlock() {
+        try {
+            File deployedFile = getDeploymentFilePath("deployed.json").toFile();
+            if (deployedFile.exists()) {
+                JsonNode blockNode = objectMapper.readTree(deployedFile).get("deploymentBlock");
+                if (blockNode != null && blockNode.canConvertToLong()) {
+                    return blockNode.asLong();
+                }
+            }
+            return null;
+
+        } catch (IOException e) {
+            log.error("Error reading contract deployment block", e);
+            return null;
+        }
+    }
+
     /**
      * Get the contract ABI from deployment files
      */
@@ -0,0 +1,48 @@
+package com.blockvote.service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of one election and its candidates.
+ * Published by ElectionContextService and rebuilt only when the election's lifecycle changes.
+ */
+public record ElectionContext(Long electionId, String title, String status, int votingRound,
+        Map<Long, CandidateEntry> candidates) {
+
+    /**
+     * Snapshot used when there is no such election
+     */
+    public static final ElectionContext NONE = new ElectionContext(null, null, null, 0, Map.of());
+
+    public ElectionContext {
+        // Keep candidate order stable (insertion order) but make the map read-only
+        candidates = Collections.unmodifiableMap(new LinkedHashMap<>(candidates));
+    }
+
+    /**
+     * Candidate data needed to validate and announce a vote
+     */
+    public record CandidateEntry(Long id, String name, String party, boolean active) {
+    }
+
+    public boolean exists() {
+        return electionId != null;
+    }
+
+    public boolean isActive() {
+        return "ACTIVE".equals(status);
+    }
+
+    public CandidateEntry candidate(Long candidateId) {
+        return candidates.get(candidateId);
+    }
+
+    public List<CandidateEntry> activeCandidates() {
+        return candidates.values().stream()
+                .filter(CandidateEntry::active)
+                .toList();
+    }
+}
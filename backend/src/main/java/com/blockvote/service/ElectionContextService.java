@@ -0,0 +1,169 @@
+package com.blockvote.service;
+
+import com.blockvote.entity.Candidate;
+import com.blockvote.entity.Election;
+import com.blockvote.repository.CandidateRepository;
+import com.blockvote.repository.ElectionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds one ElectionContext per election so the vote path can validate the election and
+ * candidate without database reads. Snapshots are independent: AdminService rebuilds only the
+ * election whose lifecycle changed, so one election's changes never invalidate another's.
+ * The current election (the latest created) is the default for clients that name no election.
+ * Ids without an election are remembered for a few seconds, so requests naming an unknown
+ * election do not each queue up for a database read.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ElectionContextService {
+
+    private final ElectionRepository electionRepository;
+    private final CandidateRepository candidateRepository;
+
+    private static final long MISSING_TTL_NANOS = TimeUnit.SECONDS.toNanos(5);
+    private static final int MAX_MISSING = 10000;
+
+    private final Map<Long, ElectionContext> contexts = new ConcurrentHashMap<>();
+    // Election ids found not to exist, to when that stops being trusted (System.nanoTime)
+    private final Map<Long, Long> missing = new ConcurrentHashMap<>();
+    private volatile Long currentId;
+    private volatile boolean loaded;
+
+    /**
+     * Snapshot of the current election, loaded on first use
+     */
+    public ElectionContext current() {
+        if (!loaded) {
+            refresh();
+        }
+        Long id = currentId;
+        return id == null ? ElectionContext.NONE : get(id);
+    }
+
+    /**
+     * Snapshot of an election, or of the current election when electionId is null.
+     * ElectionContext.NONE if there is no such election.
+     */
+    public ElectionContext get(Long electionId) {
+        if (electionId == null) {
+            return current();
+        }
+        ElectionContext context = contexts.get(electionId);
+        if (context != null) {
+            return context;
+        }
+        return isMissing(electionId) ? ElectionContext.NONE : load(electionId);
+    }
+
+    /**
+     * Snapshots of all elections that have not been stopped, newest first
+     */
+    public List<ElectionContext> open() {
+        if (!loaded) {
+            refresh();
+        }
+        return contexts.values().stream()
+                .filter(c -> !"STOPPED".equals(c.status()))
+                .sorted(Comparator.comparing(ElectionContext::electionId).reversed())
+                .toList();
+    }
+
+    /**
+     * Rebuild every snapshot of an open election and the current election pointer
+     */
+    public synchronized void refresh() {
+        contexts.clear();
+        missing.clear();
+        for (Election election : electionRepository.findByStatusInOrderByCreatedAtDesc(List.of("CREATED", "ACTIVE"))) {
+            contexts.put(election.getId(), build(election));
+        }
+        currentId = electionRepository.findTopByOrderByCreatedAtDesc().map(Election::getId).orElse(null);
+        loaded = true;
+        log.debug("Election contexts refreshed: {} open elections, current={}", contexts.size(), currentId);
+    }
+
+    /**
+     * Rebuild the snapshot of one election and publish it
+     */
+    public synchronized ElectionContext refresh(Long electionId) {
+        Election election = electionRepository.findById(electionId).orElse(null);
+        if (election == null) {
+            contexts.remove(electionId);
+            if (missing.size() >= MAX_MISSING) {
+                missing.clear();
+            }
+            missing.put(electionId, System.nanoTime() + MISSING_TTL_NANOS);
+            return ElectionContext.NONE;
+        }
+
+        ElectionContext context = build(election);
+        contexts.put(electionId, context);
+        missing.remove(electionId);
+        if (currentId == null || electionId > currentId) {
+            currentId = electionId;
+        }
+        log.debug("Election context refreshed: election={}, status={}, candidates={}",
+                context.electionId(), context.status(), context.candidates().size());
+        return context;
+    }
+
+    // First read of an election; callers that queued behind another load of it reuse its outcome
+    private synchronized ElectionContext load(Long electionId) {
+        ElectionContext context = contexts.get(electionId);
+        if (context != null) {
+            return context;
+        }
+        return isMissing(electionId) ? ElectionContext.NONE : refresh(electionId);
+    }
+
+    private boolean isMissing(Long electionId) {
+        Long until = missing.get(electionId);
+        if (until == null) {
+            return false;
+        }
+        if (System.nanoTime() - until < 0) {
+            return true;
+        }
+        missing.remove(electionId, until);
+        return false;
+    }
+
+    /**
+     * Rebuild the election's snapshot once the surrounding transaction commits, or right away when there is none
+     */
+    public void refreshAfterCommit(Long electionId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    refresh(electionId);
+                }
+            });
+        } else {
+            refresh(electionId);
+        }
+    }
+
+    private ElectionContext build(Election election) {
+        Map<Long, ElectionContext.CandidateEntry> candidates = new LinkedHashMap<>();
+        for (Candidate c : candidateRepository.findByElectionId(election.getId())) {
+            candidates.put(c.getId(), new ElectionContext.CandidateEntry(
+                    c.getId(), c.getName(), c.getParty(), Boolean.TRUE.equals(c.getIsActive())));
+        }
+        return new ElectionContext(election.getId(), election.getTitle(), election.getStatus(),
+                election.getVotingRound() == null ? 0 : election.getVotingRound(), candidates);
+    }
+}
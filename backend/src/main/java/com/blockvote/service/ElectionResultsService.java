@@ -0,0 +1,232 @@
+package com.blockvote.service;
+
+import com.blockvote.dto.ApiResponse;
+import com.blockvote.entity.Candidate;
+import com.blockvote.entity.Election;
+import com.blockvote.entity.ElectionResults;
+import com.blockvote.repository.CandidateRepository;
+import com.blockvote.repository.ElectionResultsRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Sealed results of stopped elections.
+ * The statistics of an election are computed once when it stops, stored as compact JSON in
+ * election_results, and served from an in-memory cache of ready-to-send response bodies with a
+ * strong ETag - a stopped election never changes.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ElectionResultsService {
+
+    private static final int CACHE_CAPACITY = 256;
+    private static final String MESSAGE = "Election statistics retrieved successfully";
+    private static final String LEDGER_SQL = "SELECT v.id, v.candidate_id, v.wallet_address, v.transaction_hash " +
+            "FROM votes v JOIN elections e ON e.id = v.election_id " +
+            "WHERE v.election_id = ? AND v.voting_round = COALESCE(e.voting_round, 0) ORDER BY v.id";
+
+    private final ElectionResultsRepository electionResultsRepository;
+    private final CandidateRepository candidateRepository;
+    private final VoteCounterService voteCounterService;
+    private final TurnoutTimelineService turnoutTimelineService;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    private final Map<Long, SealedResults> cache = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, SealedResults> eldest) {
+                    return size() > CACHE_CAPACITY;
+                }
+            });
+
+    /**
+     * Serialized statistics response of a stopped election and its ETag
+     */
+    public record SealedResults(Long electionId, byte[] body, String etag) {
+    }
+
+    /**
+     * Compute and store the results of an election that is being stopped.
+     * Must run in the stop transaction after STOPPED has been flushed with the election row
+     * locked, so no vote can be admitted while the ledger is hashed. Candidate vote counts and
+     * the election total must already be final.
+     */
+    public void seal(Election election, List<Candidate> candidates) {
+        if (!"STOPPED".equals(election.getStatus()) || !TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Election " + election.getId()
+                    + " can only be sealed inside the transaction that stopped it");
+        }
+        String ledgerHash = computeLedgerHash(election.getId());
+        Map<Long, Long> totals = candidates.stream()
+                .collect(Collectors.toMap(Candidate::getId, c -> (long) c.getVoteCount()));
+        Map<String, Object> statistics = buildStatistics(election, candidates, totals, ledgerHash);
+
+        try {
+            String json = objectMapper.writeValueAsString(statistics);
+            ElectionResults results = new ElectionResults(election.getId(), json, sha256(json),
+                    turnoutTimelineService.seal(election.getId()), ledgerHash, LocalDateTime.now());
+            electionResultsRepository.save(results);
+
+            // A re-stopped election (after a reset) must not be served from an old cache entry
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        cache.remove(election.getId());
+                    }
+                });
+            } else {
+                cache.remove(election.getId());
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Error storing election results: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Statistics of a stopped election, from the cache or the sealed row.
+     * Elections stopped before results were sealed are computed from their candidates once.
+     */
+    public SealedResults getStatistics(Election election) {
+        SealedResults cached = cache.get(election.getId());
+        if (cached != null) {
+            return cached;
+        }
+
+        try {
+            String json = electionResultsRepository.findById(election.getId())
+                    .map(ElectionResults::getResultsJson)
+                    .orElse(null);
+            if (json == null) {
+                List<Candidate> candidates = candidateRepository.findByElectionIdAndIsActiveTrue(election.getId());
+                Map<Long, Long> totals = voteCounterService.getCandidateTotals(candidates);
+                json = objectMapper.writeValueAsString(buildStatistics(election, candidates, totals, null));
+            }
+
+            byte[] body = objectMapper.writeValueAsBytes(new ApiResponse(true, MESSAGE, objectMapper.readTree(json)));
+            SealedResults results = new SealedResults(election.getId(), body, "\"" + sha256(json) + "\"");
+            cache.put(election.getId(), results);
+            return results;
+        } catch (Exception e) {
+            throw new RuntimeException("Error reading election results: " + e.getMessage(), e);
+        }
+    }
+
+    private Map<String, Object> buildStatistics(Election election, List<Candidate> candidates,
+            Map<Long, Long> totals, String ledgerHash) {
+        long totalVotes = totals.values().stream()
+                .mapToLong(Long::longValue)
+                .sum();
+
+        Map<String, Object> electionSummary = new LinkedHashMap<>();
+        electionSummary.put("id", election.getId());
+        electionSummary.put("title", election.getTitle());
+        electionSummary.put("status", election.getStatus());
+        electionSummary.put("createdAt", election.getCreatedAt());
+        electionSummary.put("startedAt", election.getStartedAt());
+        electionSummary.put("stoppedAt", election.getStoppedAt());
+        electionSummary.put("totalVotes", totalVotes);
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("election", electionSummary);
+        stats.put("candidates", candidates.stream()
+                .map(c -> candidateResult(c, totals.get(c.getId()), totalVotes))
+                .collect(Collectors.toList()));
+        stats.put("totalVotes", totalVotes);
+        stats.put("duration", calculateElectionDuration(election));
+        stats.put("turnout", turnoutTimelineService.getPeaks(election.getId()));
+
+        // Calculate winner
+        Candidate winner = candidates.stream()
+                .max(Comparator.comparingLong(c -> totals.get(c.getId())))
+                .orElse(null);
+        stats.put("winner", winner == null ? null : candidateResult(winner, totals.get(winner.getId()), totalVotes));
+
+        // Calculate vote percentages
+        if (totalVotes > 0) {
+            stats.put("votePercentages", candidates.stream()
+                    .collect(Collectors.toMap(Candidate::getName, c -> percentage(totals.get(c.getId()), totalVotes),
+                            (a, b) -> a, LinkedHashMap::new)));
+        }
+
+        stats.put("ledgerHash", ledgerHash);
+        return stats;
+    }
+
+    private Map<String, Object> candidateResult(Candidate candidate, long voteCount, long totalVotes) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("id", candidate.getId());
+        result.put("name", candidate.getName());
+        result.put("party", candidate.getParty());
+        result.put("voteCount", voteCount);
+        result.put("percentage", percentage(voteCount, totalVotes));
+        return result;
+    }
+
+    private static double percentage(long votes, long totalVotes) {
+        return totalVotes == 0 ? 0.0 : (double) votes / totalVotes * 100;
+    }
+
+    // SHA-256 over (id, candidate, wallet, transaction hash) of every vote of the election, in id
+    // order. Reads only this election's round through idx_votes_election_id, not the whole table.
+    private String computeLedgerHash(Long electionId) {
+        MessageDigest digest = newDigest();
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(LEDGER_SQL);
+            ps.setLong(1, electionId);
+            ps.setFetchSize(10000);
+            return ps;
+        }, (RowCallbackHandler) rs -> {
+            String row = rs.getLong(1) + "|" + rs.getLong(2) + "|" + rs.getString(3) + "|" + rs.getString(4) + "\n";
+            digest.update(row.getBytes(StandardCharsets.UTF_8));
+        });
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static String sha256(String value) {
+        return HexFormat.of().formatHex(newDigest().digest(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (Exception e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private String calculateElectionDuration(Election election) {
+        if (election.getStartedAt() == null || election.getStoppedAt() == null) {
+            return "Unknown";
+        }
+
+        long minutes = java.time.Duration.between(election.getStartedAt(), election.getStoppedAt()).toMinutes();
+        if (minutes < 60) {
+            return minutes + " minutes";
+        } else {
+            long hours = minutes / 60;
+            long remainingMinutes = minutes % 60;
+            return hours + " hours " + (remainingMinutes > 0 ? remainingMinutes + " minutes" : "");
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.blockvote.service;
+
+import com.blockvote.config.VotingConfig;
+import com.blockvote.dto.ApiResponse;
+import com.blockvote.entity.IdempotencyRecord;
+import com.blockvote.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Replays the stored response of a vote request when a client retries it with the same
+ * Idempotency-Key. Keys are scoped to the voter, kept in a bounded in-memory map for
+ * idempotencyTtlMs and optionally in the idempotency_keys table so they survive a restart.
+ * A retry that arrives while the original is still running waits for its outcome.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final int PURGE_EVERY = 1000;
+
+    private final VotingConfig votingConfig;
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final ObjectMapper objectMapper;
+
+    // Oldest key first; guarded by synchronizing on the map itself
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+    private final AtomicLong stored = new AtomicLong();
+
+    private record StoredResponse(int status, ApiResponse body) {
+    }
+
+    private record Entry(String fingerprint, long createdAt, CompletableFuture<StoredResponse> response) {
+    }
+
+    /**
+     * Run the request once per key; later requests with the same key get the stored response.
+     * Only successful responses are kept, so a failed request can be retried.
+     */
+    public ResponseEntity<ApiResponse> execute(String idempotencyKey, String voterMobile, String fingerprint,
+            Supplier<ResponseEntity<ApiResponse>> request) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return request.get();
+        }
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new RuntimeException("Idempotency-Key must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+
+        String key = voterMobile + ":" + idempotencyKey;
+        Entry entry = new Entry(fingerprint, System.currentTimeMillis(), new CompletableFuture<>());
+        Entry existing = track(key, entry);
+        if (existing != null) {
+            checkFingerprint(existing.fingerprint(), fingerprint);
+            return replay(await(existing.response()));
+        }
+
+        ResponseEntity<ApiResponse> response;
+        try {
+            StoredResponse persisted = findPersisted(key, fingerprint);
+            if (persisted != null) {
+                entry.response().complete(persisted);
+                return replay(persisted);
+            }
+            response = request.get();
+        } catch (RuntimeException e) {
+            forget(key, entry);
+            entry.response().completeExceptionally(e);
+            throw e;
+        }
+
+        StoredResponse result = new StoredResponse(response.getStatusCode().value(), response.getBody());
+        if (response.getStatusCode().is2xxSuccessful()) {
+            persist(key, fingerprint, result);
+        } else {
+            forget(key, entry);
+        }
+        entry.response().complete(result);
+        return response;
+    }
+
+    // Register the entry unless a live one holds the key (returned instead), then evict the
+    // oldest completed entries over capacity. Entries still waiting for a response are never
+    // evicted, or a concurrent retry would run the vote a second time.
+    private Entry track(String key, Entry entry) {
+        synchronized (entries) {
+            Entry existing = entries.get(key);
+            if (existing != null && !isExpired(existing.createdAt())) {
+                return existing;
+            }
+            entries.remove(key);
+            entries.put(key, entry);
+
+            Iterator<Entry> oldest = entries.values().iterator();
+            while (entries.size() > votingConfig.getIdempotencyCapacity() && oldest.hasNext()) {
+                if (oldest.next().response().isDone()) {
+                    oldest.remove();
+                }
+            }
+            return null;
+        }
+    }
+
+    // Drop the key only while it still maps to this entry, not to a newer one
+    private void forget(String key, Entry entry) {
+        synchronized (entries) {
+            entries.remove(key, entry);
+        }
+    }
+
+    private StoredResponse await(CompletableFuture<StoredResponse> response) {
+        try {
+            return response.get(votingConfig.getIngestionTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException("Failed to record vote", e.getCause());
+        } catch (TimeoutException e) {
+            throw new RuntimeException("The original request with this Idempotency-Key is still being processed");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the original request");
+        }
+    }
+
+    private ResponseEntity<ApiResponse> replay(StoredResponse response) {
+        return ResponseEntity.status(response.status())
+                .header(REPLAYED_HEADER, "true")
+                .body(response.body());
+    }
+
+    private void checkFingerprint(String original, String fingerprint) {
+        if (!original.equals(fingerprint)) {
+            throw new RuntimeException("Idempotency-Key was already used for a different vote request");
+        }
+    }
+
+    private boolean isExpired(long createdAt) {
+        return System.currentTimeMillis() - createdAt > votingConfig.getIdempotencyTtlMs();
+    }
+
+    private StoredResponse findPersisted(String key, String fingerprint) {
+        if (!votingConfig.getIdempotencyPersistent()) {
+            return null;
+        }
+        IdempotencyRecord record = idempotencyRecordRepository.findById(key).orElse(null);
+        if (record == null || record.getCreatedAt().isBefore(cutoff())) {
+            return null;
+        }
+        checkFingerprint(record.getRequestFingerprint(), fingerprint);
+        try {
+            Object data = record.getResponseData() == null ? null : objectMapper.readTree(record.getResponseData());
+            return new StoredResponse(record.getHttpStatus(), new ApiResponse(true, record.getMessage(), data));
+        } catch (Exception e) {
+            log.warn("Unreadable stored response for idempotency key {}: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    private void persist(String key, String fingerprint, StoredResponse response) {
+        if (!votingConfig.getIdempotencyPersistent()) {
+            return;
+        }
+        try {
+            ApiResponse body = response.body();
+            idempotencyRecordRepository.save(new IdempotencyRecord(key, fingerprint, response.status(),
+                    body.getMessage(), objectMapper.writeValueAsString(body.getData()), LocalDateTime.now()));
+            if (stored.incrementAndGet() % PURGE_EVERY == 0) {
+                idempotencyRecordRepository.deleteExpired(cutoff());
+            }
+        } catch (Exception e) {
+            // The in-memory entry still covers retries on this instance
+            log.warn("Failed to store idempotency key {}: {}", key, e.getMessage());
+        }
+    }
+
+    private LocalDateTime cutoff() {
+        return LocalDateTime.now().minus(Duration.ofMillis(votingConfig.getIdempotencyTtlMs()));
+    }
+}
@@ -0,0 +1,173 @@
+package com.blockvote.service;
+
+import com.blockvote.entity.ListenerCheckpoint;
+import com.blockvote.repository.ListenerCheckpointRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Durable progress of the blockchain listener: the processed blocks and their hashes, so a
+ * restart resumes where it stopped, and the rollback of listener votes above a reorg's fork point.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ListenerCheckpointService {
+
+    // Checkpoints kept per contract to search for the fork point of a reorg
+    public static final int HISTORY = 256;
+    private static final int PRUNE_EVERY = 64;
+
+    // Votes recorded by the listener carry this marker instead of a mobile number. Votes of
+    // stopped elections are sealed: their results are final and a rollback leaves them alone.
+    private static final String ROLLBACK_SQL = "DELETE FROM votes v WHERE v.voter_mobile = 'BLOCKCHAIN_VOTE' " +
+            "AND v.contract_address = ? AND v.block_number > ? AND NOT EXISTS (SELECT 1 FROM elections e " +
+            "WHERE e.id = v.election_id AND e.status = 'STOPPED') RETURNING v.election_id, v.candidate_id, v.voted_at";
+    private static final String SEALED_SQL = "SELECT v.election_id, COUNT(*) AS votes FROM votes v " +
+            "JOIN elections e ON e.id = v.election_id WHERE v.voter_mobile = 'BLOCKCHAIN_VOTE' " +
+            "AND v.contract_address = ? AND v.block_number > ? AND e.status = 'STOPPED' GROUP BY v.election_id";
+    private static final String CLAIM_SQL = "UPDATE votes SET contract_address = ? " +
+            "WHERE voter_mobile = 'BLOCKCHAIN_VOTE' AND contract_address IS NULL";
+
+    private final ListenerCheckpointRepository checkpointRepository;
+    private final VoteCounterService voteCounterService;
+    private final LiveResultsService liveResultsService;
+    private final TurnoutTimelineService turnoutTimelineService;
+    private final MerkleService merkleService;
+    private final JdbcTemplate jdbcTemplate;
+
+    private int saves;
+
+    // A listener vote removed by a rollback
+    private record RevokedVote(Long electionId, Long candidateId, LocalDateTime votedAt) {
+    }
+
+    /**
+     * The newest checkpoint of the contract, if the listener has processed any block of it
+     */
+    public Optional<ListenerCheckpoint> latest(String contractAddress) {
+        return checkpointRepository.findTopByContractAddressOrderByBlockNumberDesc(normalize(contractAddress));
+    }
+
+    /**
+     * Checkpoints of the contract, newest first
+     */
+    public List<ListenerCheckpoint> history(String contractAddress) {
+        return checkpointRepository.findByContractAddressOrderByBlockNumberDesc(normalize(contractAddress),
+                PageRequest.of(0, HISTORY));
+    }
+
+    /**
+     * Record that every block up to and including blockNumber has been processed
+     */
+    @Transactional
+    public void save(String contractAddress, long blockNumber, String blockHash) {
+        String contract = normalize(contractAddress);
+        checkpointRepository.save(new ListenerCheckpoint(contract, blockNumber, blockHash, LocalDateTime.now()));
+
+        if (++saves % PRUNE_EVERY == 0) {
+            List<ListenerCheckpoint> kept = history(contract);
+            if (kept.size() == HISTORY) {
+                checkpointRepository.deleteBefore(contract, kept.get(HISTORY - 1).getBlockNumber());
+            }
+        }
+    }
+
+    /**
+     * Make blockNumber the newest checkpoint again, so the listener reprocesses the blocks after it
+     */
+    @Transactional
+    public void rewind(String contractAddress, long blockNumber, String blockHash) {
+        String contract = normalize(contractAddress);
+        checkpointRepository.deleteAfter(contract, blockNumber);
+        checkpointRepository.save(new ListenerCheckpoint(contract, blockNumber, blockHash, LocalDateTime.now()));
+    }
+
+    /**
+     * Undo everything the listener recorded above the fork point: delete its votes and
+     * checkpoints and take the votes out of the counters, the live results and the turnout
+     * timeline. Merkle trees of the affected elections are rebuilt from the database.
+     * Votes of stopped elections are kept and reported, since their results are sealed.
+     *
+     * @return number of votes removed
+     */
+    @Transactional
+    public int rollback(String contractAddress, long forkBlock) {
+        String contract = normalize(contractAddress);
+        jdbcTemplate.query(SEALED_SQL, (RowCallbackHandler) rs -> log.error(
+                "Reorg below block {} of contract {} touches {} votes of stopped election {}; its sealed " +
+                        "results were left unchanged and need a manual recount",
+                forkBlock, contract, rs.getLong("votes"), rs.getLong("election_id")), contract, forkBlock);
+        List<RevokedVote> revoked = jdbcTemplate.query(ROLLBACK_SQL,
+                (rs, i) -> new RevokedVote((Long) rs.getObject("election_id"), rs.getLong("candidate_id"),
+                        rs.getTimestamp("voted_at").toLocalDateTime()),
+                contract, forkBlock);
+        checkpointRepository.deleteAfter(contract, forkBlock);
+
+        Map<Long, Map<Long, Long>> perElection = new HashMap<>();
+        for (RevokedVote vote : revoked) {
+            voteCounterService.add(VoteCounterService.CANDIDATE, vote.candidateId(), -1);
+            if (vote.electionId() != null) {
+                voteCounterService.add(VoteCounterService.ELECTION, vote.electionId(), -1);
+                perElection.computeIfAbsent(vote.electionId(), id -> new HashMap<>())
+                        .merge(vote.candidateId(), -1L, Long::sum);
+            }
+        }
+
+        // Registered inside the transaction, so a live results reload waits for it to be counted
+        perElection.forEach(liveResultsService::recordVotesAfterCommit);
+        Runnable afterCommit = () -> {
+            Set<Long> elections = new HashSet<>();
+            for (RevokedVote vote : revoked) {
+                turnoutTimelineService.revokeVote(vote.electionId(), vote.candidateId(), vote.votedAt());
+                if (vote.electionId() != null && elections.add(vote.electionId())) {
+                    merkleService.discard(vote.electionId());
+                }
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    afterCommit.run();
+                }
+            });
+        } else {
+            afterCommit.run();
+        }
+
+        log.warn("Rolled back {} listener votes above block {} of contract {}", revoked.size(), forkBlock,
+                contractAddress);
+        return revoked.size();
+    }
+
+    /**
+     * Attribute listener votes recorded before votes carried their contract to this contract
+     */
+    @Transactional
+    public void claimLegacyVotes(String contractAddress) {
+        int claimed = jdbcTemplate.update(CLAIM_SQL, normalize(contractAddress));
+        if (claimed > 0) {
+            log.info("Attributed {} earlier blockchain votes to contract {}", claimed, contractAddress);
+        }
+    }
+
+    private static String normalize(String contractAddress) {
+        return contractAddress.toLowerCase();
+    }
+}
@@ -0,0 +1,25 @@
+package com.blockvote.service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable, versioned snapshot of the live results of one election.
+ * json holds the complete /admin/results response body, serialized once per version.
+ */
+public record LiveResults(long version, Long electionId, String electionStatus, long totalVotes,
+        Map<Long, Long> voteCounts, byte[] json) {
+
+    public LiveResults {
+        // Keep candidate order stable (insertion order) but make the map read-only
+        voteCounts = Collections.unmodifiableMap(new LinkedHashMap<>(voteCounts));
+    }
+
+    /**
+     * Strong ETag for the serialized body; versions are counted per election
+     */
+    public String etag() {
+        return "\"results-" + electionId + "-" + version + "\"";
+    }
+}
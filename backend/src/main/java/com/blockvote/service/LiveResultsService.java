@@ -0,0 +1,351 @@
+package com.blockvote.service;
+
+import com.blockvote.config.VotingConfig;
+import com.blockvote.dto.ApiResponse;
+import com.blockvote.entity.Candidate;
+import com.blockvote.repository.CandidateRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory results views, one per election, maintained incrementally by every committed
+ * vote (REST path and blockchain listener). Each election has its own counters, version and
+ * lock, so votes in one election never contend with another. Readers get an immutable
+ * LiveResults snapshot that is rebuilt at most once per change. A view is reloaded from the
+ * sharded counters when it is created, when its election context changes and every
+ * resultsReconcileIntervalMs. A reload only replaces counts it can compare exactly: the
+ * counters must have been read while no vote group of the election was between its commit
+ * and its count, otherwise the view keeps counting incrementally and is checked again later.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LiveResultsService {
+
+    private final ElectionContextService electionContextService;
+    private final CandidateRepository candidateRepository;
+    private final VoteCounterService voteCounterService;
+    private final VotingConfig votingConfig;
+    private final ObjectMapper objectMapper;
+    private final MerkleService merkleService;
+
+    // Each new view starts its versions at a fresh base, so a dropped and recreated view never
+    // repeats a version (and ETag) of the old one
+    private final AtomicLong versionBase = new AtomicLong();
+    private final Map<Long, View> views = new ConcurrentHashMap<>();
+    private final View none = newView();
+    private final Map<Long, Activity> activity = new ConcurrentHashMap<>();
+    private ScheduledExecutorService reconciler;
+
+    private static final int QUIESCENT_READS = 3;
+
+    // Counters of one election; counts[i] belongs to candidates.get(i). Not exact when it was
+    // loaded while votes were being committed, so a vote may be counted twice until the next reload.
+    private record Tally(ElectionContext context, List<ElectionContext.CandidateEntry> candidates,
+            Map<Long, Integer> positions, AtomicLongArray counts, boolean exact) {
+    }
+
+    // Vote groups of an election in a transaction that has not been counted yet, and the number
+    // of groups counted so far
+    private static final class Activity {
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicLong recorded = new AtomicLong();
+    }
+
+    // Results view of one election
+    private static final class View {
+        private final AtomicLong version;
+        // Votes count under the read lock; a reload swaps its tally in under the write lock
+        private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+        private volatile Tally tally;
+        private volatile LiveResults snapshot;
+
+        private View(long base) {
+            version = new AtomicLong(base);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        reconcile();
+        reconciler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "live-results-reconciler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = votingConfig.getResultsReconcileIntervalMs();
+        reconciler.scheduleWithFixedDelay(() -> {
+            try {
+                reconcile();
+            } catch (Exception e) {
+                log.error("Live results reconcile failed", e);
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (reconciler != null) {
+            reconciler.shutdownNow();
+        }
+    }
+
+    /**
+     * Snapshot of the current election
+     */
+    public LiveResults current() {
+        return get(null);
+    }
+
+    /**
+     * Snapshot of an election, or of the current election when electionId is null;
+     * only rebuilt when votes arrived since the last one
+     */
+    public LiveResults get(Long electionId) {
+        ElectionContext context = electionContextService.get(electionId);
+        View view = context.exists() ? views.computeIfAbsent(context.electionId(), id -> newView()) : none;
+        tally(view, context);
+        LiveResults results = view.snapshot;
+        if (results != null && results.version() == view.version.get()) {
+            return results;
+        }
+        return rebuild(view, context);
+    }
+
+    /**
+     * Count committed votes of an election, candidate id to number of votes
+     */
+    public void recordVotes(Long electionId, Map<Long, Long> perCandidate) {
+        if (electionId == null) {
+            return;
+        }
+        activity(electionId).recorded.incrementAndGet();
+        // Without a view the votes are already in the counters it will be loaded from
+        View view = views.get(electionId);
+        if (view == null) {
+            return;
+        }
+        tally(view, electionContextService.get(electionId));
+        Lock lock = view.swapLock.readLock();
+        lock.lock();
+        try {
+            Tally current = view.tally;
+            perCandidate.forEach((candidateId, count) -> {
+                Integer position = current.positions().get(candidateId);
+                if (position != null) {
+                    current.counts().addAndGet(position, count);
+                }
+            });
+            view.version.incrementAndGet();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void recordVote(Long electionId, Long candidateId) {
+        recordVotes(electionId, Map.of(candidateId, 1L));
+    }
+
+    /**
+     * Count the votes once the surrounding transaction commits, or right away when there is none.
+     * Until then the election has a group in flight, which holds off exact reloads.
+     */
+    public void recordVotesAfterCommit(Long electionId, Map<Long, Long> perCandidate) {
+        if (electionId != null && TransactionSynchronizationManager.isSynchronizationActive()) {
+            Activity election = activity(electionId);
+            election.inFlight.incrementAndGet();
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    recordVotes(electionId, perCandidate);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    election.inFlight.decrementAndGet();
+                }
+            });
+        } else {
+            recordVotes(electionId, perCandidate);
+        }
+    }
+
+    /**
+     * Reload the counts of every open election and the current one from the database, and drop
+     * the views of the others. Views whose election keeps committing votes throughout the reload
+     * are left as they are until a later one.
+     */
+    public void reconcile() {
+        Map<Long, ElectionContext> contexts = new LinkedHashMap<>();
+        electionContextService.open().forEach(context -> contexts.put(context.electionId(), context));
+        ElectionContext current = electionContextService.current();
+        if (current.exists()) {
+            contexts.put(current.electionId(), current);
+        }
+        contexts.forEach((electionId, context) ->
+                load(views.computeIfAbsent(electionId, id -> newView()), context));
+        views.keySet().retainAll(contexts.keySet());
+    }
+
+    private View newView() {
+        return new View(versionBase.addAndGet(1L << 32));
+    }
+
+    private Tally tally(View view, ElectionContext context) {
+        Tally current = view.tally;
+        // A new context means the election lifecycle changed - start from the database again
+        return current != null && current.context() == context ? current : load(view, context);
+    }
+
+    private Activity activity(Long electionId) {
+        return activity.computeIfAbsent(electionId, id -> new Activity());
+    }
+
+    private Tally load(View view, ElectionContext context) {
+        synchronized (view) {
+            List<ElectionContext.CandidateEntry> candidates = new ArrayList<>(context.candidates().values());
+            Map<Long, Integer> positions = new HashMap<>();
+            AtomicLongArray counts = new AtomicLongArray(candidates.size());
+            for (int i = 0; i < candidates.size(); i++) {
+                positions.put(candidates.get(i).id(), i);
+            }
+
+            // The read is exact when no group was between its transaction and its count at any
+            // point of it: every committed vote is then both in the totals and in the view
+            Map<Long, Long> totals = Map.of();
+            Activity election = context.exists() ? activity(context.electionId()) : null;
+            boolean exact = election == null;
+            long recordedBefore = 0;
+            if (election != null) {
+                List<Candidate> rows = candidateRepository.findByElectionId(context.electionId());
+                for (int attempt = 0; attempt < QUIESCENT_READS && !exact; attempt++) {
+                    recordedBefore = election.recorded.get();
+                    boolean idle = election.inFlight.get() == 0;
+                    totals = voteCounterService.getCandidateTotals(rows);
+                    exact = idle && election.inFlight.get() == 0 && election.recorded.get() == recordedBefore;
+                }
+            }
+            for (int i = 0; i < candidates.size(); i++) {
+                counts.set(i, totals.getOrDefault(candidates.get(i).id(), 0L));
+            }
+
+            Lock lock = view.swapLock.writeLock();
+            lock.lock();
+            try {
+                if (election != null && election.recorded.get() != recordedBefore) {
+                    exact = false;
+                }
+                Tally previous = view.tally;
+                if (previous != null && previous.context() == context) {
+                    if (!exact || (previous.exact() && sameCounts(previous.counts(), counts))) {
+                        return previous;
+                    }
+                    if (!sameCounts(previous.counts(), counts)) {
+                        if (previous.exact()) {
+                            log.warn("Live results for election {} differed from the database and were corrected",
+                                    context.electionId());
+                        } else {
+                            log.debug("Live results for election {} settled after a reload under load",
+                                    context.electionId());
+                        }
+                    }
+                }
+
+                Tally loaded = new Tally(context, candidates, positions, counts, exact);
+                view.tally = loaded;
+                view.version.incrementAndGet();
+                return loaded;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private LiveResults rebuild(View view, ElectionContext context) {
+        // Only the root already computed: building the tree is never done on a results read
+        MerkleService.Root root = context.exists() ? merkleService.cachedRoot(context.electionId()) : null;
+        synchronized (view) {
+            // Read the version before the counts: a vote counted in between makes this snapshot stale
+            Tally source = tally(view, context);
+            long current = view.version.get();
+
+            Map<String, Object> data = new LinkedHashMap<>();
+            Map<Long, Long> voteCounts = new LinkedHashMap<>();
+            long totalVotes = 0;
+            if (!context.exists()) {
+                data.put("totalVotes", 0);
+                data.put("results", List.of());
+                data.put("message", "No election found");
+            } else {
+                List<Map<String, Object>> results = new ArrayList<>(source.candidates().size());
+                for (int i = 0; i < source.candidates().size(); i++) {
+                    ElectionContext.CandidateEntry candidate = source.candidates().get(i);
+                    long count = source.counts().get(i);
+                    voteCounts.put(candidate.id(), count);
+                    totalVotes += count;
+
+                    Map<String, Object> result = new LinkedHashMap<>();
+                    result.put("id", candidate.id());
+                    result.put("name", candidate.name());
+                    result.put("party", candidate.party());
+                    result.put("voteCount", count);
+                    results.add(result);
+                }
+                data.put("totalVotes", totalVotes);
+                data.put("results", results);
+                data.put("electionId", context.electionId());
+                data.put("electionTitle", context.title());
+                data.put("electionStatus", context.status());
+
+                data.put("merkleRoot", root == null ? null : root.hash());
+                data.put("merkleSize", root == null ? 0 : root.size());
+            }
+            data.put("version", current);
+
+            try {
+                byte[] json = objectMapper.writeValueAsBytes(new ApiResponse(true, "Results fetched successfully", data));
+                LiveResults results = new LiveResults(current, context.electionId(), context.status(), totalVotes,
+                        voteCounts, json);
+                view.snapshot = results;
+                return results;
+            } catch (Exception e) {
+                throw new RuntimeException("Failed to serialize results: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    private static boolean sameCounts(AtomicLongArray a, AtomicLongArray b) {
+        if (a.length() != b.length()) {
+            return false;
+        }
+        for (int i = 0; i < a.length(); i++) {
+            if (a.get(i) != b.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
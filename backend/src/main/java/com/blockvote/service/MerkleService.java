@@ -0,0 +1,418 @@
+package com.blockvote.service;
+
+import com.blockvote.config.VotingConfig;
+import com.blockvote.entity.Vote;
+import com.blockvote.repository.VoteRepository;
+import com.blockvote.util.MerkleAccumulator;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Append-only Merkle accumulator of the votes of each election, in vote id order.
+ *
+ * Leaves are SHA-256(0x00 || voteId || electionId || candidateId || votedAt epoch millis ||
+ * lowercase wallet address), with the numbers as 8-byte big-endian values. Committed votes are
+ * appended incrementally: the ids of a group are registered as in flight before it commits and a
+ * committed vote is appended once no lower id is still in flight, so commit order does not change
+ * the tree. The vote path never blocks on the tree - committed votes are queued and appended by
+ * whichever thread holds the tree next. A vote that still arrives out of order (or an election
+ * that is not loaded yet) makes the tree rebuild from the votes table on its next read.
+ *
+ * Leaves are not salted and a candidate id has few values, so the leaf hash of a vote would tell
+ * anyone who its voter chose. Proofs are therefore only served with the vote's proof token, an
+ * HMAC of the vote id that is handed to the voter with the vote.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MerkleService {
+
+    private static final int MAX_WALLET_BYTES = 64;
+    private static final String LEAVES_SQL = "SELECT v.id, v.candidate_id, v.voted_at, v.wallet_address " +
+            "FROM votes v JOIN elections e ON e.id = v.election_id " +
+            "WHERE v.election_id = ? AND v.voting_round = COALESCE(e.voting_round, 0) ORDER BY v.id";
+
+    private final VoteRepository voteRepository;
+    private final ElectionContextService electionContextService;
+    private final JdbcTemplate jdbcTemplate;
+    private final VotingConfig votingConfig;
+
+    private final Map<Long, Ledger> ledgers = new ConcurrentHashMap<>();
+    private SecretKeySpec proofKey;
+
+    /**
+     * Root hash (hex) of an election's tree and the number of votes it covers
+     */
+    public record Root(Long electionId, String hash, long size) {
+    }
+
+    /**
+     * RFC 6962 audit path of a vote: hash the leaf, then combine with auditPath bottom-up to get root
+     */
+    public record InclusionProof(Long voteId, Long electionId, long leafIndex, long treeSize, String leafHash,
+            List<String> auditPath, String root) {
+    }
+
+    private record Leaf(long voteId, byte[] data) {
+    }
+
+    private static final class Ledger {
+        final Long electionId;
+        final ReentrantLock lock = new ReentrantLock();
+        final ConcurrentSkipListSet<Long> inFlight = new ConcurrentSkipListSet<>();
+        final Queue<Leaf> committed = new ConcurrentLinkedQueue<>();
+        // Guarded by lock
+        final TreeMap<Long, byte[]> ready = new TreeMap<>();
+        MerkleAccumulator tree = new MerkleAccumulator();
+        long[] voteIds = new long[1024];
+        boolean stale = true;
+        volatile Root root;
+
+        Ledger(Long electionId) {
+            this.electionId = electionId;
+        }
+
+        long lastVoteId() {
+            return tree.size() == 0 ? Long.MIN_VALUE : voteIds[(int) tree.size() - 1];
+        }
+    }
+
+    @PostConstruct
+    public void initProofKey() {
+        byte[] secret;
+        if (votingConfig.getProofSecret() == null || votingConfig.getProofSecret().isBlank()) {
+            secret = new byte[32];
+            new SecureRandom().nextBytes(secret);
+            log.warn("voting.proof-secret is not set; proof tokens issued now stop working after a restart");
+        } else {
+            secret = votingConfig.getProofSecret().getBytes(StandardCharsets.UTF_8);
+        }
+        proofKey = new SecretKeySpec(secret, "HmacSHA256");
+    }
+
+    // Load the trees of the running elections in the background so the first reads are cheap
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        List<ElectionContext> elections = electionContextService.open();
+        if (elections.isEmpty()) {
+            return;
+        }
+        Thread loader = new Thread(() -> {
+            for (ElectionContext context : elections) {
+                try {
+                    root(context.electionId());
+                } catch (Exception e) {
+                    log.warn("Failed to load the vote Merkle tree of election {}: {}", context.electionId(),
+                            e.getMessage());
+                }
+            }
+        }, "merkle-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    /**
+     * Add a group of votes being written in the current transaction; they are appended once it
+     * commits. The votes must already have their ids.
+     */
+    public void appendAfterCommit(List<VoteIngestionService.PendingVote> votes) {
+        if (votes.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            votes.forEach(p -> appendCommitted(p.electionId(), p.vote()));
+            return;
+        }
+
+        votes.forEach(p -> ledger(p.electionId()).inFlight.add(p.vote().getId()));
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                votes.forEach(p -> ledger(p.electionId()).committed.add(leaf(p.electionId(), p.vote())));
+                release(votes);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    release(votes);
+                }
+            }
+        });
+    }
+
+    /**
+     * Add a vote that is already committed (blockchain listener)
+     */
+    public void appendCommitted(Long electionId, Vote vote) {
+        if (electionId == null || vote.getId() == null) {
+            return;
+        }
+        Ledger ledger = ledger(electionId);
+        ledger.committed.add(leaf(electionId, vote));
+        drainIfFree(ledger);
+    }
+
+    /**
+     * Root of the election's tree, loading or rebuilding it first if needed
+     */
+    public Root root(Long electionId) {
+        Ledger ledger = ledger(electionId);
+        ledger.lock.lock();
+        try {
+            refresh(ledger);
+            return ledger.root;
+        } finally {
+            ledger.lock.unlock();
+        }
+    }
+
+    /**
+     * Last root computed for the election, without loading, draining or rebuilding its tree;
+     * null until the tree has been built
+     */
+    public Root cachedRoot(Long electionId) {
+        Ledger ledger = ledgers.get(electionId);
+        return ledger == null ? null : ledger.root;
+    }
+
+    /**
+     * Token that unlocks the inclusion proof of a vote, given to its voter only
+     */
+    public String proofToken(Long voteId) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(proofKey);
+            byte[] id = new byte[8];
+            putLong(id, 0, voteId);
+            return HexFormat.of().formatHex(mac.doFinal(id));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to compute proof token", e);
+        }
+    }
+
+    /**
+     * Inclusion proof of a committed vote of the current round against the current root of its
+     * election; token must be the vote's proof token
+     */
+    public InclusionProof proof(Long voteId, String token) {
+        if (token == null || !MessageDigest.isEqual(proofToken(voteId).getBytes(StandardCharsets.US_ASCII),
+                token.toLowerCase().getBytes(StandardCharsets.US_ASCII))) {
+            throw new RuntimeException("Invalid proof token for vote " + voteId);
+        }
+        Vote vote = voteRepository.findById(voteId)
+                .orElseThrow(() -> new RuntimeException("Vote not found with id: " + voteId));
+        Long electionId = vote.getElectionId();
+        if (electionId == null) {
+            throw new RuntimeException("Vote " + voteId + " has no election");
+        }
+        ElectionContext election = electionContextService.get(electionId);
+        if (!election.exists() || vote.getVotingRound() == null
+                || vote.getVotingRound() != election.votingRound()) {
+            throw new RuntimeException("Vote " + voteId + " is from an earlier voting round and no longer in the ledger");
+        }
+
+        Ledger ledger = ledger(electionId);
+        ledger.lock.lock();
+        try {
+            refresh(ledger);
+            int index = Arrays.binarySearch(ledger.voteIds, 0, (int) ledger.tree.size(), voteId);
+            if (index < 0) {
+                throw new RuntimeException("Vote " + voteId + " is not in the ledger yet, please retry shortly");
+            }
+            HexFormat hex = HexFormat.of();
+            return new InclusionProof(voteId, electionId, index, ledger.tree.size(),
+                    hex.formatHex(ledger.tree.leafHash(index)),
+                    ledger.tree.proof(index).stream().map(hex::formatHex).toList(),
+                    ledger.root.hash());
+        } finally {
+            ledger.lock.unlock();
+        }
+    }
+
+    /**
+     * Drop the tree, e.g. when the election is reset or restarted; it is rebuilt on the next read
+     */
+    public void discard(Long electionId) {
+        Ledger ledger = ledgers.get(electionId);
+        if (ledger != null) {
+            ledger.lock.lock();
+            try {
+                ledger.stale = true;
+            } finally {
+                ledger.lock.unlock();
+            }
+        }
+    }
+
+    private Ledger ledger(Long electionId) {
+        return ledgers.computeIfAbsent(electionId, Ledger::new);
+    }
+
+    private void release(List<VoteIngestionService.PendingVote> votes) {
+        votes.forEach(p -> ledger(p.electionId()).inFlight.remove(p.vote().getId()));
+        votes.stream().map(VoteIngestionService.PendingVote::electionId).distinct()
+                .forEach(electionId -> drainIfFree(ledger(electionId)));
+    }
+
+    // Never wait on the vote path: if another thread holds the tree it drains the queue later
+    private void drainIfFree(Ledger ledger) {
+        if (ledger.lock.tryLock()) {
+            try {
+                if (ledger.stale) {
+                    // These votes are committed, so the rebuild reads them from the votes table
+                    ledger.committed.clear();
+                } else {
+                    drain(ledger);
+                }
+            } finally {
+                ledger.lock.unlock();
+            }
+        }
+    }
+
+    private void refresh(Ledger ledger) {
+        if (ledger.stale) {
+            rebuild(ledger);
+        }
+        drain(ledger);
+        if (ledger.stale) {
+            rebuild(ledger);
+            drain(ledger);
+        }
+    }
+
+    // Move committed votes into the tree in id order, stopping below the lowest id still in flight
+    private void drain(Ledger ledger) {
+        // Read the bound before polling: a vote leaves inFlight only after it was queued
+        Long lowestInFlight = ledger.inFlight.isEmpty() ? null : ledger.inFlight.first();
+        Leaf leaf;
+        while ((leaf = ledger.committed.poll()) != null) {
+            offer(ledger, leaf.voteId(), leaf.data());
+        }
+
+        boolean appended = false;
+        while (!ledger.ready.isEmpty() && (lowestInFlight == null || ledger.ready.firstKey() < lowestInFlight)) {
+            Map.Entry<Long, byte[]> next = ledger.ready.pollFirstEntry();
+            append(ledger, next.getKey(), next.getValue());
+            appended = true;
+        }
+        if (appended || ledger.root == null) {
+            updateRoot(ledger);
+        }
+    }
+
+    private void offer(Ledger ledger, long voteId, byte[] data) {
+        if (voteId > ledger.lastVoteId()) {
+            ledger.ready.putIfAbsent(voteId, data);
+        } else if (Arrays.binarySearch(ledger.voteIds, 0, (int) ledger.tree.size(), voteId) < 0) {
+            // Committed behind a vote that is already in the tree; only a rebuild can place it
+            ledger.stale = true;
+        }
+    }
+
+    private void append(Ledger ledger, long voteId, byte[] data) {
+        int position = (int) ledger.tree.size();
+        if (position == ledger.voteIds.length) {
+            ledger.voteIds = Arrays.copyOf(ledger.voteIds, position * 2);
+        }
+        ledger.voteIds[position] = voteId;
+        ledger.tree.appendData(data, 0, data.length);
+    }
+
+    private void rebuild(Ledger ledger) {
+        long startTime = System.currentTimeMillis();
+        ledger.tree = new MerkleAccumulator();
+        ledger.ready.clear();
+        ledger.stale = false;
+
+        // Votes at or above the lowest in-flight id wait in ready so they stay in id order
+        Long lowestInFlight = ledger.inFlight.isEmpty() ? null : ledger.inFlight.first();
+        byte[] buffer = new byte[32 + MAX_WALLET_BYTES];
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(LEAVES_SQL);
+            ps.setLong(1, ledger.electionId);
+            ps.setFetchSize(10000);
+            return ps;
+        }, (RowCallbackHandler) rs -> {
+            long voteId = rs.getLong(1);
+            LocalDateTime votedAt = rs.getTimestamp(3).toLocalDateTime();
+            int length = encodeLeaf(buffer, voteId, ledger.electionId, rs.getLong(2), millis(votedAt),
+                    rs.getString(4));
+            if (lowestInFlight == null || voteId < lowestInFlight) {
+                append(ledger, voteId, Arrays.copyOf(buffer, length));
+            } else {
+                ledger.ready.put(voteId, Arrays.copyOf(buffer, length));
+            }
+        });
+        updateRoot(ledger);
+        log.info("Built vote Merkle tree of election {}: {} votes in {} ms", ledger.electionId,
+                ledger.tree.size(), System.currentTimeMillis() - startTime);
+    }
+
+    private static void updateRoot(Ledger ledger) {
+        ledger.root = new Root(ledger.electionId, HexFormat.of().formatHex(ledger.tree.root()), ledger.tree.size());
+    }
+
+    private static Leaf leaf(Long electionId, Vote vote) {
+        byte[] buffer = new byte[32 + MAX_WALLET_BYTES];
+        int length = encodeLeaf(buffer, vote.getId(), electionId, vote.getCandidateId(), millis(vote.getVotedAt()),
+                vote.getWalletAddress());
+        return new Leaf(vote.getId(), Arrays.copyOf(buffer, length));
+    }
+
+    private static long millis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Leaf data of a vote, written into buffer; returns its length
+     */
+    static int encodeLeaf(byte[] buffer, long voteId, long electionId, long candidateId, long votedAtMillis,
+            String walletAddress) {
+        int offset = putLong(buffer, 0, voteId);
+        offset = putLong(buffer, offset, electionId);
+        offset = putLong(buffer, offset, candidateId);
+        offset = putLong(buffer, offset, votedAtMillis);
+        int length = walletAddress == null ? 0 : Math.min(walletAddress.length(), MAX_WALLET_BYTES);
+        for (int i = 0; i < length; i++) {
+            buffer[offset++] = (byte) Character.toLowerCase(walletAddress.charAt(i));
+        }
+        return offset;
+    }
+
+    private static int putLong(byte[] buffer, int offset, long value) {
+        for (int i = 7; i >= 0; i--) {
+            buffer[offset++] = (byte) (value >>> (i * 8));
+        }
+        return offset;
+    }
+}
@@ -0,0 +1,401 @@
+package com.blockvote.service;
+
+import com.blockvote.config.BlockchainConfig;
+import com.blockvote.config.VotingConfig;
+import com.blockvote.entity.Candidate;
+import com.blockvote.entity.Election;
+import com.blockvote.repository.CandidateRepository;
+import com.blockvote.repository.ElectionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Service;
+import org.web3j.abi.FunctionEncoder;
+import org.web3j.abi.FunctionReturnDecoder;
+import org.web3j.abi.TypeReference;
+import org.web3j.abi.datatypes.Function;
+import org.web3j.abi.datatypes.Type;
+import org.web3j.abi.datatypes.Utf8String;
+import org.web3j.abi.datatypes.generated.Uint256;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.methods.request.Transaction;
+import org.web3j.protocol.core.methods.response.EthCall;
+import org.web3j.protocol.http.HttpService;
+
+import jakarta.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.math.BigInteger;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Admin-triggered recount of an election from the votes table.
+ *
+ * The recount reads a PostgreSQL snapshot exported by a coordinating REPEATABLE READ transaction:
+ * the stored counts and counters are read in that transaction, and the vote id range is split
+ * into chunks that fork-join workers scan in transactions importing the same snapshot. Nothing
+ * is locked, so voting continues while it runs, and every number is compared as of one instant.
+ * On-chain counts are read afterwards and are therefore only as consistent as the chain itself.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RecountService {
+
+    public static final String SOURCE_COUNTERS = "COUNTERS";
+    public static final String SOURCE_STORED = "STORED";
+    public static final String SOURCE_CHAIN = "CHAIN";
+
+    private static final int FETCH_SIZE = 10000;
+    private static final String CHUNK_SQL = "SELECT candidate_id FROM votes WHERE id BETWEEN ? AND ? AND candidate_id = ANY(?)";
+    private static final String RANGE_SQL = "SELECT MIN(v.id), MAX(v.id) FROM votes v " +
+            "JOIN elections e ON e.id = v.election_id " +
+            "WHERE v.election_id = ? AND v.voting_round = COALESCE(e.voting_round, 0)";
+    private static final String COUNTERS_SQL = "SELECT owner_id, SUM(vote_count) FROM vote_counter_shards " +
+            "WHERE counter_type = ? AND owner_id = ANY(?) GROUP BY owner_id";
+
+    private final DataSource dataSource;
+    private final ElectionRepository electionRepository;
+    private final CandidateRepository candidateRepository;
+    private final VotingConfig votingConfig;
+    private final BlockchainConfig blockchainConfig;
+    private final ContractInfoService contractInfoService;
+
+    private final AtomicReference<Run> latest = new AtomicReference<>();
+    private final ExecutorService coordinator = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "recount");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Progress and outcome of a recount
+     */
+    public record RecountStatus(Long electionId, String state, LocalDateTime startedAt, LocalDateTime finishedAt,
+            long chunksDone, long chunksTotal, long votesScanned, long votesPerSecond,
+            List<CandidateTally> candidates, Long recountedTotal, List<Discrepancy> discrepancies, String error) {
+    }
+
+    /**
+     * Recounted votes of a candidate next to every other source; null where a source has no value
+     */
+    public record CandidateTally(Long candidateId, String name, long recounted, Long counters, long stored,
+            Long onChain) {
+    }
+
+    /**
+     * A source that disagrees with the recount. Scope is CANDIDATE or ELECTION.
+     */
+    public record Discrepancy(String scope, Long id, String source, long recounted, long reported) {
+    }
+
+    private static class Run {
+        final Long electionId;
+        final LocalDateTime startedAt = LocalDateTime.now();
+        final long startNanos = System.nanoTime();
+        final AtomicLong chunksDone = new AtomicLong();
+        final AtomicLong votesScanned = new AtomicLong();
+        volatile long chunksTotal;
+        volatile String state = "RUNNING";
+        volatile LocalDateTime finishedAt;
+        volatile long elapsedNanos;
+        volatile List<CandidateTally> candidates;
+        volatile Long recountedTotal;
+        volatile List<Discrepancy> discrepancies;
+        volatile String error;
+
+        Run(Long electionId) {
+            this.electionId = electionId;
+        }
+
+        RecountStatus status() {
+            long elapsed = finishedAt == null ? System.nanoTime() - startNanos : elapsedNanos;
+            long scanned = votesScanned.get();
+            long rate = elapsed > 0 ? scanned * 1_000_000_000L / elapsed : 0;
+            return new RecountStatus(electionId, state, startedAt, finishedAt, chunksDone.get(), chunksTotal,
+                    scanned, rate, candidates, recountedTotal, discrepancies, error);
+        }
+
+        void finish(String finalState) {
+            elapsedNanos = System.nanoTime() - startNanos;
+            finishedAt = LocalDateTime.now();
+            state = finalState;
+        }
+    }
+
+    // Candidate values read inside the coordinating snapshot
+    private record Snapshot(String id, long[] stored, long[] counters, boolean hasCounters, long storedTotal,
+            Long counterTotal, long minId, long maxId) {
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        coordinator.shutdownNow();
+    }
+
+    /**
+     * Start a recount of the election in the background; only one recount runs at a time
+     */
+    public RecountStatus start(Long electionId) {
+        Election election = electionRepository.findById(electionId)
+                .orElseThrow(() -> new RuntimeException("Election not found with id: " + electionId));
+        List<Candidate> candidates = candidateRepository.findByElectionId(electionId).stream()
+                .sorted((a, b) -> Long.compare(a.getId(), b.getId()))
+                .toList();
+
+        Run run = new Run(electionId);
+        Run previous = latest.get();
+        if (previous != null && "RUNNING".equals(previous.state)) {
+            throw new RuntimeException("A recount of election " + previous.electionId + " is already running");
+        }
+        if (!latest.compareAndSet(previous, run)) {
+            throw new RuntimeException("A recount was started concurrently");
+        }
+
+        coordinator.execute(() -> {
+            try {
+                recount(run, election, candidates);
+                run.finish("COMPLETED");
+                log.info("Recount of election {} finished: {} votes in {} ms, {} discrepancies", electionId,
+                        run.recountedTotal, run.elapsedNanos / 1_000_000, run.discrepancies.size());
+            } catch (Exception e) {
+                log.error("Recount of election {} failed", electionId, e);
+                run.error = e.getMessage();
+                run.finish("FAILED");
+            }
+        });
+        return run.status();
+    }
+
+    /**
+     * Status of the running or most recent recount, or null if none was started
+     */
+    public RecountStatus getStatus() {
+        Run run = latest.get();
+        return run == null ? null : run.status();
+    }
+
+    private void recount(Run run, Election election, List<Candidate> candidates) throws Exception {
+        long[] candidateIds = candidates.stream().mapToLong(Candidate::getId).toArray();
+        long[] recounted;
+        Snapshot snapshot;
+
+        // The exporting transaction must stay open until every chunk has imported its snapshot
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                snapshot = readSnapshot(connection, election.getId(), candidateIds);
+                recounted = scan(run, snapshot, candidateIds);
+            } finally {
+                connection.rollback();
+            }
+        }
+
+        Map<Long, Long> onChain = readOnChainCounts(candidateIds);
+        boolean stopped = "STOPPED".equals(election.getStatus());
+
+        List<CandidateTally> tallies = new ArrayList<>();
+        List<Discrepancy> discrepancies = new ArrayList<>();
+        long total = 0;
+        for (int i = 0; i < candidateIds.length; i++) {
+            Long counter = snapshot.hasCounters() ? snapshot.counters()[i] : null;
+            Long chain = onChain.get(candidateIds[i]);
+            tallies.add(new CandidateTally(candidateIds[i], candidates.get(i).getName(), recounted[i], counter,
+                    snapshot.stored()[i], chain));
+            total += recounted[i];
+
+            compare(discrepancies, "CANDIDATE", candidateIds[i], SOURCE_COUNTERS, recounted[i], counter);
+            // Stored counts are only folded in from the counters when the election stops
+            if (stopped) {
+                compare(discrepancies, "CANDIDATE", candidateIds[i], SOURCE_STORED, recounted[i],
+                        snapshot.stored()[i]);
+            }
+            compare(discrepancies, "CANDIDATE", candidateIds[i], SOURCE_CHAIN, recounted[i], chain);
+        }
+        compare(discrepancies, "ELECTION", election.getId(), SOURCE_COUNTERS, total, snapshot.counterTotal());
+        if (stopped) {
+            compare(discrepancies, "ELECTION", election.getId(), SOURCE_STORED, total, snapshot.storedTotal());
+        }
+
+        run.candidates = tallies;
+        run.recountedTotal = total;
+        run.discrepancies = discrepancies;
+    }
+
+    private static void compare(List<Discrepancy> discrepancies, String scope, Long id, String source,
+            long recounted, Long reported) {
+        if (reported != null && reported != recounted) {
+            discrepancies.add(new Discrepancy(scope, id, source, recounted, reported));
+        }
+    }
+
+    private Snapshot readSnapshot(Connection connection, Long electionId, long[] candidateIds) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SET TRANSACTION ISOLATION LEVEL REPEATABLE READ READ ONLY");
+        }
+        JdbcTemplate jdbc = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+        String snapshotId = jdbc.queryForObject("SELECT pg_export_snapshot()", String.class);
+
+        long[] stored = new long[candidateIds.length];
+        jdbc.query("SELECT id, vote_count FROM candidates WHERE election_id = ?", (RowCallbackHandler) rs -> {
+            int position = Arrays.binarySearch(candidateIds, rs.getLong(1));
+            if (position >= 0) {
+                stored[position] = rs.getLong(2);
+            }
+        }, electionId);
+        Long storedTotal = jdbc.queryForObject("SELECT total_votes FROM elections WHERE id = ?", Long.class,
+                electionId);
+
+        long[] counters = new long[candidateIds.length];
+        int[] found = new int[1];
+        Long[] boxedIds = Arrays.stream(candidateIds).boxed().toArray(Long[]::new);
+        jdbc.query(con -> counterQuery(con, VoteCounterService.CANDIDATE, boxedIds), (RowCallbackHandler) rs -> {
+            int position = Arrays.binarySearch(candidateIds, rs.getLong(1));
+            if (position >= 0) {
+                counters[position] = rs.getLong(2);
+                found[0]++;
+            }
+        });
+        List<Long> electionCounter = jdbc.query(
+                con -> counterQuery(con, VoteCounterService.ELECTION, new Long[] { electionId }),
+                (rs, rowNum) -> rs.getLong(2));
+
+        Map<String, Object> range = jdbc.queryForMap(RANGE_SQL, electionId);
+        Number min = (Number) range.get("min");
+        Number max = (Number) range.get("max");
+
+        return new Snapshot(snapshotId, stored, counters, found[0] > 0, storedTotal == null ? 0 : storedTotal,
+                electionCounter.isEmpty() ? null : electionCounter.get(0),
+                min == null ? 0 : min.longValue(), max == null ? -1 : max.longValue());
+    }
+
+    private static PreparedStatement counterQuery(Connection con, String type, Long[] ownerIds) throws SQLException {
+        PreparedStatement ps = con.prepareStatement(COUNTERS_SQL);
+        ps.setString(1, type);
+        ps.setArray(2, con.createArrayOf("bigint", ownerIds));
+        return ps;
+    }
+
+    // Split [minId, maxId] into chunks and scan them in parallel, each into its own long[] accumulator
+    private long[] scan(Run run, Snapshot snapshot, long[] candidateIds) {
+        long chunkSize = votingConfig.getRecountChunkSize();
+        List<long[]> ranges = new ArrayList<>();
+        for (long from = snapshot.minId(); from <= snapshot.maxId(); from += chunkSize) {
+            ranges.add(new long[] { from, Math.min(from + chunkSize - 1, snapshot.maxId()) });
+        }
+        run.chunksTotal = ranges.size();
+
+        long[] totals = new long[candidateIds.length];
+        if (ranges.isEmpty()) {
+            return totals;
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(votingConfig.getRecountParallelism());
+        try {
+            List<ForkJoinTask<long[]>> tasks = ranges.stream()
+                    .map(r -> pool.submit(() -> scanChunk(run, snapshot.id(), candidateIds, r[0], r[1])))
+                    .toList();
+            for (ForkJoinTask<long[]> task : tasks) {
+                long[] counts = task.join();
+                for (int i = 0; i < totals.length; i++) {
+                    totals[i] += counts[i];
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return totals;
+    }
+
+    private long[] scanChunk(Run run, String snapshotId, long[] candidateIds, long fromId, long toId) {
+        long[] counts = new long[candidateIds.length];
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET TRANSACTION ISOLATION LEVEL REPEATABLE READ READ ONLY");
+                statement.execute("SET TRANSACTION SNAPSHOT '" + snapshotId.replace("'", "") + "'");
+            }
+
+            try (PreparedStatement ps = connection.prepareStatement(CHUNK_SQL)) {
+                Array ids = connection.createArrayOf("bigint", Arrays.stream(candidateIds).boxed().toArray());
+                ps.setLong(1, fromId);
+                ps.setLong(2, toId);
+                ps.setArray(3, ids);
+                ps.setFetchSize(FETCH_SIZE);
+
+                long scanned = 0;
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        counts[Arrays.binarySearch(candidateIds, rs.getLong(1))]++;
+                        if (++scanned == FETCH_SIZE) {
+                            run.votesScanned.addAndGet(scanned);
+                            scanned = 0;
+                        }
+                    }
+                }
+                run.votesScanned.addAndGet(scanned);
+            } finally {
+                connection.rollback();
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to recount votes " + fromId + "-" + toId + ": " + e.getMessage(), e);
+        }
+        run.chunksDone.incrementAndGet();
+        return counts;
+    }
+
+    // getCandidate(id) for every candidate; empty when the chain is disabled or unreachable
+    private Map<Long, Long> readOnChainCounts(long[] candidateIds) {
+        Map<Long, Long> counts = new HashMap<>();
+        String contractAddress = blockchainConfig.getEnabled() ? contractInfoService.getContractAddress() : null;
+        if (contractAddress == null) {
+            return counts;
+        }
+
+        Web3j web3j = Web3j.build(new HttpService(blockchainConfig.getRpcUrl()));
+        try {
+            for (long candidateId : candidateIds) {
+                Function function = new Function("getCandidate", List.of(new Uint256(candidateId)), List.of(
+                        new TypeReference<Uint256>() {
+                        }, new TypeReference<Utf8String>() {
+                        }, new TypeReference<Uint256>() {
+                        }));
+                EthCall response = web3j.ethCall(Transaction.createEthCallTransaction(null, contractAddress,
+                        FunctionEncoder.encode(function)), DefaultBlockParameterName.LATEST).send();
+                if (response.hasError() || response.isReverted()) {
+                    continue; // candidate not registered on chain
+                }
+                // web3j declares the decoded values as a raw List<Type>
+                @SuppressWarnings("rawtypes")
+                List<Type> values = FunctionReturnDecoder.decode(response.getValue(), function.getOutputParameters());
+                if (values.size() == 3) {
+                    counts.put(candidateId, ((BigInteger) values.get(2).getValue()).longValue());
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Could not read on-chain counts: {}", e.getMessage());
+        } finally {
+            web3j.shutdown();
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,176 @@
+package com.blockvote.service;
+
+import com.blockvote.config.VotingConfig;
+import com.blockvote.dto.ResultsUpdate;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streams the live results views to /topic/results/{electionId} and to SSE clients.
+ * Every resultsPushIntervalMs the view of each open election is checked once: if votes arrived,
+ * a single DELTA with the changed candidate counts goes out, however many votes there were. New STOMP subscribers
+ * trigger a SNAPSHOT on the next push; SSE clients get theirs when they connect.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ResultsStreamService {
+
+    private static final String TOPIC_PREFIX = "/topic/results/";
+
+    private final LiveResultsService liveResultsService;
+    private final ElectionContextService electionContextService;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final VotingConfig votingConfig;
+
+    private final Map<Long, Set<SseEmitter>> emitters = new ConcurrentHashMap<>();
+    private final Set<Long> snapshotRequests = ConcurrentHashMap.newKeySet();
+    private ScheduledExecutorService pusher;
+
+    // Last results pushed per election, to compute the next delta against
+    private final Map<Long, LiveResults> lastPushed = new HashMap<>();
+
+    @PostConstruct
+    public void start() {
+        pusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "results-stream");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = votingConfig.getResultsPushIntervalMs();
+        pusher.scheduleWithFixedDelay(this::push, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        pusher.shutdownNow();
+        emitters.values().forEach(set -> set.forEach(SseEmitter::complete));
+    }
+
+    /**
+     * A STOMP client subscribed to /topic/results/{electionId}: send a full snapshot on the next push
+     */
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        String destination = StompHeaderAccessor.wrap(event.getMessage()).getDestination();
+        if (destination != null && destination.startsWith(TOPIC_PREFIX)) {
+            try {
+                snapshotRequests.add(Long.parseLong(destination.substring(TOPIC_PREFIX.length())));
+            } catch (NumberFormatException e) {
+                log.debug("Ignoring subscription to {}", destination);
+            }
+        }
+    }
+
+    /**
+     * Open an SSE stream of the results of an election, starting with a full snapshot
+     */
+    public SseEmitter subscribe(Long electionId) {
+        LiveResults current = liveResultsService.get(electionId);
+        if (current.electionId() == null) {
+            throw new RuntimeException("Election not found with id: " + electionId);
+        }
+
+        SseEmitter emitter = new SseEmitter(votingConfig.getResultsSseTimeoutMs());
+        Set<SseEmitter> subscribers = emitters.computeIfAbsent(electionId, id -> new CopyOnWriteArraySet<>());
+        subscribers.add(emitter);
+        emitter.onCompletion(() -> subscribers.remove(emitter));
+        emitter.onTimeout(() -> subscribers.remove(emitter));
+        emitter.onError(e -> subscribers.remove(emitter));
+
+        send(emitter, subscribers, update(ResultsUpdate.SNAPSHOT, current, current.voteCounts()));
+        return emitter;
+    }
+
+    private synchronized void push() {
+        Set<Long> open = new LinkedHashSet<>();
+        electionContextService.open().forEach(context -> open.add(context.electionId()));
+        ElectionContext currentElection = electionContextService.current();
+        if (currentElection.exists()) {
+            open.add(currentElection.electionId());
+        }
+
+        // Elections pushed last time get one more round, so subscribers see them stop
+        Set<Long> elections = new LinkedHashSet<>(open);
+        elections.addAll(lastPushed.keySet());
+        for (Long electionId : elections) {
+            try {
+                push(electionId);
+            } catch (Exception e) {
+                log.error("Error pushing live results of election {}", electionId, e);
+            }
+        }
+        lastPushed.keySet().retainAll(open);
+        snapshotRequests.clear(); // requests for elections that are not open
+    }
+
+    private void push(Long electionId) {
+        LiveResults current = liveResultsService.get(electionId);
+        if (current.electionId() == null) {
+            lastPushed.remove(electionId);
+            return;
+        }
+        LiveResults previous = lastPushed.put(electionId, current);
+
+        if (snapshotRequests.remove(electionId) || previous == null) {
+            publish(update(ResultsUpdate.SNAPSHOT, current, current.voteCounts()));
+        } else if (current.version() != previous.version()) {
+            Map<Long, Long> changed = new LinkedHashMap<>();
+            current.voteCounts().forEach((candidateId, count) -> {
+                if (!Objects.equals(count, previous.voteCounts().get(candidateId))) {
+                    changed.put(candidateId, count);
+                }
+            });
+            if (!changed.isEmpty() || !Objects.equals(current.electionStatus(), previous.electionStatus())) {
+                publish(update(ResultsUpdate.DELTA, current, changed));
+            }
+        }
+    }
+
+    private ResultsUpdate update(String type, LiveResults results, Map<Long, Long> voteCounts) {
+        return new ResultsUpdate(type, results.electionId(), results.electionStatus(), results.version(),
+                voteCounts, results.totalVotes());
+    }
+
+    private void publish(ResultsUpdate update) {
+        messagingTemplate.convertAndSend(TOPIC_PREFIX + update.getElectionId(), update);
+
+        Set<SseEmitter> subscribers = emitters.get(update.getElectionId());
+        if (subscribers != null) {
+            subscribers.forEach(emitter -> send(emitter, subscribers, update));
+        }
+    }
+
+    private void send(SseEmitter emitter, Set<SseEmitter> subscribers, ResultsUpdate update) {
+        try {
+            emitter.send(SseEmitter.event()
+                    .name(update.getType().toLowerCase())
+                    .id(String.valueOf(update.getVersion()))
+                    .data(update));
+        } catch (IOException | IllegalStateException e) {
+            subscribers.remove(emitter);
+            emitter.completeWithError(e);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.blockvote.service;
+
+import com.blockvote.config.VotingConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+/**
+ * Shared scheduler for the simulated blockchain console events.
+ * Replaces one sleeping thread per call with delayed tasks on a single scheduler, and
+ * confirms simulated vote transactions in blocks produced every simulatedBlockIntervalMs.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SimulatedChainScheduler {
+
+    private static final long MEMPOOL_DELAY_MS = 1000;
+    private static final long LATE_THRESHOLD_MS = 1000;
+    private static final int CONFIRMATIONS_SHOWN_PER_BLOCK = 5;
+
+    private final BlockchainConsoleService consoleService;
+    private final VotingConfig votingConfig;
+
+    private ScheduledExecutorService scheduler;
+    private final Queue<PendingTransaction> mempool = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingConfirmations = new AtomicInteger();
+    private final AtomicInteger scheduledEvents = new AtomicInteger();
+    private final AtomicLong lateEvents = new AtomicLong();
+    private final AtomicLong droppedConfirmations = new AtomicLong();
+    private final AtomicLong blockNumber = new AtomicLong(2039220L);
+
+    private record PendingTransaction(String txHash, long submittedAt, LongConsumer onConfirmed) {
+    }
+
+    @PostConstruct
+    public void start() {
+        // Tasks only broadcast messages, so they run on cheap virtual threads
+        scheduler = new ScheduledThreadPoolExecutor(1, Thread.ofVirtual().name("simulated-chain-", 0).factory());
+        long interval = votingConfig.getSimulatedBlockIntervalMs();
+        scheduler.scheduleAtFixedRate(this::produceBlock, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Run a console event after a delay
+     */
+    public void schedule(long delayMs, Runnable event) {
+        long due = System.currentTimeMillis() + delayMs;
+        scheduledEvents.incrementAndGet();
+        scheduler.schedule(() -> {
+            scheduledEvents.decrementAndGet();
+            if (System.currentTimeMillis() - due > LATE_THRESHOLD_MS) {
+                lateEvents.incrementAndGet();
+            }
+            try {
+                event.run();
+            } catch (Exception e) {
+                log.error("Simulated chain event failed", e);
+            }
+        }, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Simulate a submitted vote transaction: it enters the mempool and is confirmed in the next block.
+     * onConfirmed (optional) receives the block number. When too many confirmations are pending
+     * the simulation is skipped for this transaction and onDropped (optional) runs instead, so
+     * the caller can settle whatever waits for the confirmation.
+     */
+    public void submitTransaction(String txHash, LongConsumer onConfirmed, Runnable onDropped) {
+        if (pendingConfirmations.incrementAndGet() > votingConfig.getSimulatedMaxPendingConfirmations()) {
+            pendingConfirmations.decrementAndGet();
+            droppedConfirmations.incrementAndGet();
+            if (onDropped != null) {
+                try {
+                    onDropped.run();
+                } catch (Exception e) {
+                    log.error("Dropped confirmation callback failed for {}", txHash, e);
+                }
+            }
+            return;
+        }
+
+        schedule(MEMPOOL_DELAY_MS, () -> {
+            consoleService.broadcastTransactionInMempool(txHash);
+            mempool.add(new PendingTransaction(txHash, System.currentTimeMillis(), onConfirmed));
+        });
+    }
+
+    // Confirm everything in the mempool as one simulated block
+    private void produceBlock() {
+        try {
+            List<PendingTransaction> included = new ArrayList<>();
+            PendingTransaction tx;
+            while ((tx = mempool.poll()) != null) {
+                included.add(tx);
+            }
+            if (included.isEmpty()) {
+                return;
+            }
+
+            long block = blockNumber.incrementAndGet();
+            long now = System.currentTimeMillis();
+            for (int i = 0; i < included.size(); i++) {
+                PendingTransaction confirmed = included.get(i);
+                if (i < CONFIRMATIONS_SHOWN_PER_BLOCK) {
+                    consoleService.broadcastTransactionConfirmed(confirmed.txHash(), block);
+                }
+                if (now - confirmed.submittedAt() > votingConfig.getSimulatedBlockIntervalMs() + LATE_THRESHOLD_MS) {
+                    lateEvents.incrementAndGet();
+                }
+                if (confirmed.onConfirmed() != null) {
+                    confirmed.onConfirmed().accept(block);
+                }
+            }
+            pendingConfirmations.addAndGet(-included.size());
+
+            consoleService.broadcastBlockchainActivity(String.format(
+                    "Block #%d mined with %d vote transaction(s) - vote counts updated", block, included.size()));
+        } catch (Exception e) {
+            log.error("Error producing simulated block", e);
+        }
+    }
+
+    /**
+     * Scheduler counters for monitoring
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("pendingConfirmations", pendingConfirmations.get());
+        stats.put("scheduledEvents", scheduledEvents.get());
+        stats.put("lateEvents", lateEvents.get());
+        stats.put("droppedConfirmations", droppedConfirmations.get());
+        stats.put("lastBlockNumber", blockNumber.get());
+        return stats;
+    }
+}
@@ -0,0 +1,224 @@
+package com.blockvote.service;
+
+import com.blockvote.entity.Candidate;
+import com.blockvote.entity.ElectionResults;
+import com.blockvote.repository.CandidateRepository;
+import com.blockvote.repository.ElectionRepository;
+import com.blockvote.repository.ElectionResultsRepository;
+import com.blockvote.util.TurnoutTimeline;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Turnout over time per election, from in-memory ring buffers updated by every committed vote.
+ * Running elections are served from memory (votes since the application started); the buckets
+ * are stored on the election when it is stopped and served from there afterwards.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TurnoutTimelineService {
+
+    private final ElectionContextService electionContextService;
+    private final ElectionRepository electionRepository;
+    private final CandidateRepository candidateRepository;
+    private final ElectionResultsRepository electionResultsRepository;
+    private final ObjectMapper objectMapper;
+
+    private final Map<Long, TurnoutTimeline> timelines = new ConcurrentHashMap<>();
+
+    /**
+     * Timeline at one resolution: non-empty buckets, oldest first
+     */
+    public record TimelineView(Long electionId, String resolution, long bucketMillis, List<Bucket> buckets) {
+    }
+
+    /**
+     * Votes in one bucket, in total and per candidate id
+     */
+    public record Bucket(LocalDateTime start, long total, Map<Long, Long> votes) {
+    }
+
+    public void recordVote(Long electionId, Long candidateId, LocalDateTime votedAt) {
+        record(electionId, candidateId, votedAt, 1);
+    }
+
+    /**
+     * Take back a vote that was recorded earlier, e.g. one rolled back by a chain reorg
+     */
+    public void revokeVote(Long electionId, Long candidateId, LocalDateTime votedAt) {
+        record(electionId, candidateId, votedAt, -1);
+    }
+
+    private void record(Long electionId, Long candidateId, LocalDateTime votedAt, long votes) {
+        if (electionId == null || candidateId == null) {
+            return;
+        }
+        TurnoutTimeline timeline = timelines.computeIfAbsent(electionId, this::create);
+        int position = timeline.positionOf(candidateId);
+        if (position >= 0) {
+            long time = votedAt == null ? System.currentTimeMillis()
+                    : votedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            timeline.record(position, time, votes);
+        }
+    }
+
+    /**
+     * Record a committed group of votes once the surrounding transaction commits
+     */
+    public void recordAfterCommit(List<VoteIngestionService.PendingVote> votes) {
+        Runnable record = () -> votes.forEach(p -> recordVote(p.electionId(), p.vote().getCandidateId(),
+                p.vote().getVotedAt()));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    record.run();
+                }
+            });
+        } else {
+            record.run();
+        }
+    }
+
+    /**
+     * Timeline of an election at the given resolution (SECOND, MINUTE or HOUR)
+     */
+    public TimelineView getTimeline(Long electionId, String resolution) {
+        TurnoutTimeline.Resolution parsed = parseResolution(resolution);
+
+        TurnoutTimeline timeline = timelines.get(electionId);
+        if (timeline != null) {
+            return view(electionId, timeline, parsed);
+        }
+
+        if (!electionRepository.existsById(electionId)) {
+            throw new RuntimeException("Election not found with id: " + electionId);
+        }
+        Map<String, TimelineView> stored = readStored(electionId);
+        TimelineView view = stored.get(parsed.name());
+        return view != null ? view : new TimelineView(electionId, parsed.name(), parsed.getBucketMillis(), List.of());
+    }
+
+    /**
+     * Peak votes per second, minute and hour
+     */
+    public Map<String, Object> getPeaks(Long electionId) {
+        TurnoutTimeline timeline = timelines.get(electionId);
+        Map<String, TimelineView> stored = timeline == null ? readStored(electionId) : Map.of();
+
+        Map<String, Object> peaks = new LinkedHashMap<>();
+        for (TurnoutTimeline.Resolution resolution : TurnoutTimeline.Resolution.values()) {
+            TimelineView view = timeline != null ? view(electionId, timeline, resolution)
+                    : stored.getOrDefault(resolution.name(),
+                            new TimelineView(electionId, resolution.name(), resolution.getBucketMillis(), List.of()));
+            Bucket peak = view.buckets().stream()
+                    .max((a, b) -> Long.compare(a.total(), b.total()))
+                    .orElse(null);
+            String name = resolution.name().charAt(0) + resolution.name().substring(1).toLowerCase();
+            peaks.put("peakVotesPer" + name, peak == null ? 0 : peak.total());
+            peaks.put("peak" + name + "Start", peak == null ? null : peak.start());
+        }
+        return peaks;
+    }
+
+    /**
+     * Serialize every resolution of the election's timeline for storage at stop time.
+     * The in-memory buffers are released once the surrounding transaction commits.
+     */
+    public String seal(Long electionId) {
+        TurnoutTimeline timeline = timelines.get(electionId);
+        if (timeline == null) {
+            return null;
+        }
+
+        Map<String, TimelineView> views = new LinkedHashMap<>();
+        for (TurnoutTimeline.Resolution resolution : TurnoutTimeline.Resolution.values()) {
+            views.put(resolution.name(), view(electionId, timeline, resolution));
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    timelines.remove(electionId);
+                }
+            });
+        }
+
+        try {
+            return objectMapper.writeValueAsString(views);
+        } catch (Exception e) {
+            log.error("Failed to serialize turnout timeline of election {}", electionId, e);
+            return null;
+        }
+    }
+
+    /**
+     * Drop the in-memory timeline, e.g. when the election is reset or restarted
+     */
+    public void discard(Long electionId) {
+        timelines.remove(electionId);
+    }
+
+    private TurnoutTimeline create(Long electionId) {
+        ElectionContext context = electionContextService.get(electionId);
+        List<Long> ids = context.exists()
+                ? new ArrayList<>(context.candidates().keySet())
+                : candidateRepository.findByElectionId(electionId).stream().map(Candidate::getId).toList();
+        return new TurnoutTimeline(ids.stream().mapToLong(Long::longValue).toArray());
+    }
+
+    private TimelineView view(Long electionId, TurnoutTimeline timeline, TurnoutTimeline.Resolution resolution) {
+        long[] candidateIds = timeline.getCandidateIds();
+        List<Bucket> buckets = timeline.buckets(resolution, System.currentTimeMillis()).stream()
+                .map(b -> {
+                    Map<Long, Long> votes = new LinkedHashMap<>();
+                    for (int i = 0; i < candidateIds.length; i++) {
+                        votes.put(candidateIds[i], b.votes()[i]);
+                    }
+                    return new Bucket(LocalDateTime.ofInstant(Instant.ofEpochMilli(b.startMillis()),
+                            ZoneId.systemDefault()), b.total(), votes);
+                })
+                .toList();
+        return new TimelineView(electionId, resolution.name(), resolution.getBucketMillis(), buckets);
+    }
+
+    private Map<String, TimelineView> readStored(Long electionId) {
+        String json = electionResultsRepository.findById(electionId)
+                .map(ElectionResults::getTurnoutTimeline)
+                .orElse(null);
+        if (json == null) {
+            return Map.of();
+        }
+        try {
+            return objectMapper.readValue(json, new TypeReference<Map<String, TimelineView>>() {
+            });
+        } catch (Exception e) {
+            log.warn("Unreadable turnout timeline for election {}: {}", electionId, e.getMessage());
+            return Map.of();
+        }
+    }
+
+    private static TurnoutTimeline.Resolution parseResolution(String resolution) {
+        try {
+            return TurnoutTimeline.Resolution.valueOf(resolution.toUpperCase());
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new RuntimeException("Invalid resolution: " + resolution + ". Use SECOND, MINUTE or HOUR");
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.blockvote.service;
+
+import com.blockvote.entity.Election;
+import com.blockvote.entity.User;
+import com.blockvote.entity.Vote;
+import com.blockvote.repository.ElectionRepository;
+import com.blockvote.repository.UserRepository;
+import com.blockvote.repository.VoteRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Commits a group of accepted votes in a single transaction
+ */
+@Service
+@RequiredArgsConstructor
+public class VoteBatchWriter {
+
+    // Atomic double-vote gate: only a verified voter using their registered wallet who has
+    // not voted in the election's current round gets an election_voters row inserted (or
+    // moved up from an earlier round). The election must still be active and in the round the
+    // vote was validated against, so votes queued across a stop or reset are rejected. The
+    // election row is share-locked until the group commits: a stop (which locks it for update)
+    // waits for groups in flight, and groups after it see STOPPED.
+    // The affected-row count decides the outcome.
+    static final String VOTE_GATE_SQL = "INSERT INTO election_voters (election_id, user_id, voting_round) " +
+            "SELECT e.id, u.id, COALESCE(e.voting_round, 0) FROM users u, elections e " +
+            "WHERE e.id = ? AND e.status = 'ACTIVE' AND COALESCE(e.voting_round, 0) = ? " +
+            "AND u.mobile_number = ? AND u.wallet_verified = true " +
+            "AND LOWER(u.registered_wallet_address) = LOWER(?) FOR SHARE OF e " +
+            "ON CONFLICT (election_id, user_id) DO UPDATE SET voting_round = EXCLUDED.voting_round " +
+            "WHERE election_voters.voting_round < EXCLUDED.voting_round";
+
+    private final VoteRepository voteRepository;
+    private final UserRepository userRepository;
+    private final ElectionRepository electionRepository;
+    private final VoteCounterService voteCounterService;
+    private final VoteJournalService voteJournalService;
+    private final LiveResultsService liveResultsService;
+    private final TurnoutTimelineService turnoutTimelineService;
+    private final MerkleService merkleService;
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Pass every vote through the conditional gate (one JDBC batch), then insert the
+     * admitted votes (JDBC batched), journal them and apply one counter update per candidate and per election.
+     *
+     * @return the saved votes in input order, with null for votes the gate rejected
+     */
+    @Transactional
+    public List<Vote> writeBatch(List<VoteIngestionService.PendingVote> batch) {
+        int[] gated = jdbcTemplate.batchUpdate(VOTE_GATE_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                VoteIngestionService.PendingVote pending = batch.get(i);
+                ps.setLong(1, pending.electionId());
+                ps.setInt(2, pending.votingRound());
+                ps.setString(3, pending.vote().getVoterMobile());
+                ps.setString(4, pending.vote().getWalletAddress());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return batch.size();
+            }
+        });
+
+        List<VoteIngestionService.PendingVote> admitted = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            if (gated[i] > 0) {
+                admitted.add(batch.get(i));
+            }
+        }
+
+        voteRepository.saveAll(admitted.stream()
+                .map(VoteIngestionService.PendingVote::vote)
+                .toList());
+        voteJournalService.append(admitted);
+
+        Map<Long, Long> perCandidate = admitted.stream()
+                .collect(Collectors.groupingBy(p -> p.vote().getCandidateId(), Collectors.counting()));
+        perCandidate.forEach((candidateId, count) -> voteCounterService.add(VoteCounterService.CANDIDATE,
+                candidateId, count));
+        countPerElection(admitted);
+
+        Vote[] result = new Vote[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            if (gated[i] > 0) {
+                result[i] = batch.get(i).vote();
+            }
+        }
+        return Arrays.asList(result);
+    }
+
+    /**
+     * Insert votes read from VoteCast logs (JDBC batched) and apply one counter update per
+     * candidate and per election, all in one transaction. The listener has already skipped
+     * transactions recorded before.
+     */
+    @Transactional
+    public void writeChainBatch(List<Vote> votes) {
+        voteRepository.saveAll(votes);
+
+        votes.stream()
+                .collect(Collectors.groupingBy(Vote::getCandidateId, Collectors.counting()))
+                .forEach((candidateId, count) -> voteCounterService.add(VoteCounterService.CANDIDATE,
+                        candidateId, count));
+
+        // Votes for a candidate outside any election only count for the candidate
+        countPerElection(votes.stream()
+                .filter(v -> v.getElectionId() != null)
+                .map(v -> new VoteIngestionService.PendingVote(v, v.getElectionId(), 0, null))
+                .toList());
+    }
+
+    private void countPerElection(List<VoteIngestionService.PendingVote> votes) {
+        votes.stream()
+                .collect(Collectors.groupingBy(VoteIngestionService.PendingVote::electionId, Collectors.counting()))
+                .forEach((electionId, count) -> voteCounterService.add(VoteCounterService.ELECTION,
+                        electionId, count));
+
+        // The Merkle tree, live results view and turnout timeline follow once the group has committed
+        merkleService.appendAfterCommit(votes);
+        votes.stream()
+                .collect(Collectors.groupingBy(VoteIngestionService.PendingVote::electionId,
+                        Collectors.groupingBy(p -> p.vote().getCandidateId(), Collectors.counting())))
+                .forEach(liveResultsService::recordVotesAfterCommit);
+        turnoutTimelineService.recordAfterCommit(votes);
+    }
+
+    /**
+     * Explain why the gate rejected a vote. Only runs on the rejection path.
+     */
+    public String explainRejection(Vote vote) {
+        Election election = vote.getElectionId() == null ? null
+                : electionRepository.findById(vote.getElectionId()).orElse(null);
+        if (election == null || !"ACTIVE".equals(election.getStatus())) {
+            return "Election is not active";
+        }
+        int round = election.getVotingRound() == null ? 0 : election.getVotingRound();
+        if (vote.getVotingRound() != null && vote.getVotingRound() != round) {
+            return "The election was reset while your vote was processed. Please vote again.";
+        }
+
+        User user = userRepository.findByMobileNumber(vote.getVoterMobile()).orElse(null);
+
+        if (user == null) {
+            return "User not found";
+        }
+        if (!user.isWalletVerified()) {
+            return "Wallet not verified! Please connect and verify your MetaMask wallet before voting.";
+        }
+        if (user.getRegisteredWalletAddress() == null) {
+            return "No wallet registered! Please connect your MetaMask wallet first.";
+        }
+        if (!user.getRegisteredWalletAddress().equalsIgnoreCase(vote.getWalletAddress())) {
+            return "Wallet address mismatch! You must vote with your registered wallet address.";
+        }
+        return "You have already voted in this election";
+    }
+}
@@ -0,0 +1,116 @@
+package com.blockvote.service;
+
+import com.blockvote.config.VotingConfig;
+import com.blockvote.entity.Candidate;
+import com.blockvote.entity.Election;
+import com.blockvote.repository.VoteCounterShardRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sharded vote counters for candidates and elections.
+ * Each increment touches one randomly chosen slot with a single atomic UPDATE,
+ * so concurrent votes do not serialize on the same candidate or election row.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class VoteCounterService {
+
+    public static final String CANDIDATE = "CANDIDATE";
+    public static final String ELECTION = "ELECTION";
+
+    private final VoteCounterShardRepository shardRepository;
+    private final VotingConfig votingConfig;
+
+    /**
+     * Create the counter slots for a candidate or election (idempotent and safe to race)
+     */
+    public void ensureSlots(String type, Long ownerId) {
+        shardRepository.createSlots(type, ownerId, votingConfig.getCounterShards());
+    }
+
+    /**
+     * Count one vote for a candidate and its election
+     */
+    public void recordVote(Long electionId, Long candidateId) {
+        add(CANDIDATE, candidateId, 1);
+        if (electionId != null) {
+            add(ELECTION, electionId, 1);
+        }
+    }
+
+    /**
+     * Add a delta to a random slot of the counter, creating the slots on first use
+     */
+    public void add(String type, Long ownerId, long delta) {
+        int slot = ThreadLocalRandom.current().nextInt(votingConfig.getCounterShards());
+
+        if (shardRepository.increment(type, ownerId, slot, delta) == 0) {
+            // Slots are normally created by AdminService; this covers older candidates
+            log.debug("Creating missing counter slots for {} {}", type, ownerId);
+            ensureSlots(type, ownerId);
+            shardRepository.increment(type, ownerId, slot, delta);
+        }
+    }
+
+    /**
+     * Current vote total of an election; falls back to the stored totalVotes when it has no counter slots
+     */
+    public long getElectionTotal(Election election) {
+        return shardRepository.sumByOwners(ELECTION, List.of(election.getId())).stream()
+                .findFirst()
+                .map(row -> ((Number) row[1]).longValue())
+                .orElse((long) election.getTotalVotes());
+    }
+
+    /**
+     * Current totals for a set of candidates, keyed by candidate id.
+     * Candidates without counter slots fall back to their stored voteCount.
+     */
+    public Map<Long, Long> getCandidateTotals(Collection<Candidate> candidates) {
+        Map<Long, Long> totals = new HashMap<>();
+        if (candidates.isEmpty()) {
+            return totals;
+        }
+
+        List<Long> candidateIds = candidates.stream().map(Candidate::getId).toList();
+        for (Object[] row : shardRepository.sumByOwners(CANDIDATE, candidateIds)) {
+            totals.put((Long) row[0], ((Number) row[1]).longValue());
+        }
+        candidates.forEach(c -> totals.putIfAbsent(c.getId(), (long) c.getVoteCount()));
+        return totals;
+    }
+
+    /**
+     * Detached copies of the candidates carrying their live vote counts
+     */
+    public List<Candidate> withLiveCounts(List<Candidate> candidates) {
+        Map<Long, Long> totals = getCandidateTotals(candidates);
+
+        return candidates.stream()
+                .map(c -> new Candidate(c.getId(), c.getName(), c.getParty(),
+                        totals.get(c.getId()).intValue(),
+                        null, c.getElectionId(), c.getIsActive()))
+                .toList();
+    }
+
+    public void reset(String type, Collection<Long> ownerIds) {
+        if (!ownerIds.isEmpty()) {
+            shardRepository.resetByOwners(type, ownerIds);
+        }
+    }
+
+    public void delete(String type, Collection<Long> ownerIds) {
+        if (!ownerIds.isEmpty()) {
+            shardRepository.deleteByOwners(type, ownerIds);
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.blockvote.service;
+
+import com.blockvote.config.VotingConfig;
+import com.blockvote.entity.Vote;
+import com.blockvote.util.VoteJournal;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Group-commit stage for accepted votes.
+ * Request threads enqueue validated votes and wait for their result, while writer threads
+ * commit them in groups of up to batchSize votes or every lingerMs. Elections are spread over
+ * ingestionLanes lanes, each with its own queue and writer, so a vote storm in one election
+ * does not queue behind another.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class VoteIngestionService {
+
+    private final VotingConfig votingConfig;
+    private final VoteBatchWriter voteBatchWriter;
+    private final VoterRegistryService voterRegistry;
+    private final VoteJournalService voteJournalService;
+
+    private List<BlockingQueue<PendingVote>> queues;
+    private Thread[] writerThreads;
+    private volatile boolean running;
+
+    /**
+     * A validated vote waiting for its group commit
+     */
+    public record PendingVote(Vote vote, Long electionId, int votingRound, CompletableFuture<Vote> result,
+            AtomicBoolean claimed) {
+
+        public PendingVote(Vote vote, Long electionId, int votingRound, CompletableFuture<Vote> result) {
+            this(vote, electionId, votingRound, result, new AtomicBoolean());
+        }
+
+        /**
+         * Take the vote, either for writing or to withdraw it; only the first caller succeeds
+         */
+        boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+    }
+
+    /**
+     * The ingestion stage is saturated: the vote was not taken or not recorded in time.
+     * Unlike a rejected vote, the request can be retried once the load drops.
+     */
+    public static class OverloadedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public OverloadedException(String message) {
+            super(message);
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!votingConfig.getIngestionEnabled()) {
+            log.info("Vote ingestion stage disabled - votes are committed on the request thread");
+            return;
+        }
+
+        int lanes = Math.max(1, votingConfig.getIngestionLanes());
+        queues = new ArrayList<>(lanes);
+        writerThreads = new Thread[lanes];
+        running = true;
+        for (int lane = 0; lane < lanes; lane++) {
+            BlockingQueue<PendingVote> queue = new ArrayBlockingQueue<>(votingConfig.getIngestionQueueCapacity());
+            queues.add(queue);
+            writerThreads[lane] = new Thread(() -> runWriter(queue), "vote-ingestion-writer-" + lane);
+            writerThreads[lane].setDaemon(true);
+            writerThreads[lane].start();
+        }
+        log.info("Vote ingestion stage started ({} lanes, batch size {}, linger {} ms)",
+                lanes, votingConfig.getIngestionBatchSize(), votingConfig.getIngestionLingerMs());
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (writerThreads != null) {
+            for (Thread writerThread : writerThreads) {
+                writerThread.interrupt();
+            }
+        }
+    }
+
+    /**
+     * Re-enqueue votes that were acknowledged with a journaled ACCEPT record but never
+     * resolved, because the application stopped while they were queued. The double-vote gate
+     * rejects any of them that had committed before the stop, including those the journal
+     * replay restored just before.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(VoteJournalService.REPLAY_ORDER + 1)
+    public void recoverAcceptedVotes() {
+        List<VoteJournal.JournalRecord> accepted;
+        try {
+            accepted = voteJournalService.unresolvedAcceptances();
+        } catch (IOException e) {
+            log.error("Failed to read accepted votes from the journal: {}", e.getMessage());
+            return;
+        }
+        if (accepted.isEmpty()) {
+            return;
+        }
+
+        int requeued = 0;
+        for (VoteJournal.JournalRecord record : accepted) {
+            Vote vote = voteJournalService.acceptedVote(record);
+            try {
+                enqueue(vote, vote.getElectionId(), vote.getVotingRound())
+                        .whenComplete((saved, error) -> voteJournalService.resolve(record.sequence()));
+                requeued++;
+            } catch (RuntimeException e) {
+                // Queue full: the rest stay unresolved and are recovered on the next start
+                log.warn("Recovered {} of {} accepted votes, the ingestion queue is full", requeued, accepted.size());
+                return;
+            }
+        }
+        log.info("Recovered {} accepted votes from the journal", requeued);
+    }
+
+    /**
+     * Commit a validated vote and return it once persisted
+     */
+    public Vote submit(Vote vote, Long electionId, int votingRound) {
+        PendingVote pending = offer(vote, electionId, votingRound);
+        long timeoutMs = votingConfig.getIngestionTimeoutMs();
+
+        try {
+            try {
+                return pending.result().get(timeoutMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                OverloadedException timeout = new OverloadedException("Timed out waiting for the vote to be recorded");
+                // Withdraw the vote so it cannot commit after the voter was told it failed
+                if (pending.claim()) {
+                    pending.result().completeExceptionally(timeout);
+                    throw timeout;
+                }
+                // The writer already has it: its commit is under way, wait for the outcome
+                try {
+                    return pending.result().get(timeoutMs, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException stillWriting) {
+                    throw timeout;
+                }
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException("Failed to record vote", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while recording vote");
+        }
+    }
+
+    /**
+     * Hand a validated vote to the writer without waiting for it.
+     * The future completes with the saved vote, or exceptionally if the vote is rejected.
+     */
+    public CompletableFuture<Vote> enqueue(Vote vote, Long electionId, int votingRound) {
+        return offer(vote, electionId, votingRound).result();
+    }
+
+    private PendingVote offer(Vote vote, Long electionId, int votingRound) {
+        PendingVote pending = new PendingVote(vote, electionId, votingRound, new CompletableFuture<>());
+
+        if (!votingConfig.getIngestionEnabled()) {
+            try {
+                complete(pending, voteBatchWriter.writeBatch(List.of(pending)).get(0));
+            } catch (Exception e) {
+                pending.result().completeExceptionally(e);
+            }
+        } else if (!queues.get(Math.floorMod(Long.hashCode(electionId), queues.size())).offer(pending)) {
+            throw new OverloadedException("Too many votes are being processed. Please try again.");
+        }
+
+        return pending;
+    }
+
+    private void runWriter(BlockingQueue<PendingVote> queue) {
+        int batchSize = votingConfig.getIngestionBatchSize();
+        long lingerNanos = TimeUnit.MILLISECONDS.toNanos(votingConfig.getIngestionLingerMs());
+
+        while (running) {
+            try {
+                PendingVote first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+
+                // Collect until the group is full or the first vote has lingered long enough
+                List<PendingVote> batch = new ArrayList<>(batchSize);
+                batch.add(first);
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    PendingVote next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                // Skip votes whose request timed out and withdrew them, before they reach the gate
+                batch.removeIf(pending -> !pending.claim());
+                if (!batch.isEmpty()) {
+                    commit(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Unexpected error in vote ingestion writer", e);
+            }
+        }
+    }
+
+    private void commit(List<PendingVote> batch) {
+        try {
+            List<Vote> saved = voteBatchWriter.writeBatch(batch);
+            for (int i = 0; i < batch.size(); i++) {
+                complete(batch.get(i), saved.get(i));
+            }
+        } catch (Exception e) {
+            // Retry one by one so a single bad vote does not fail the whole group
+            log.warn("Group commit of {} votes failed, retrying individually: {}", batch.size(), e.getMessage());
+            for (PendingVote pending : batch) {
+                pending.vote().setId(null); // id from the rolled back attempt
+                try {
+                    complete(pending, voteBatchWriter.writeBatch(List.of(pending)).get(0));
+                } catch (Exception single) {
+                    pending.result().completeExceptionally(single);
+                }
+            }
+        }
+    }
+
+    // A null saved vote means the double-vote gate rejected it
+    private void complete(PendingVote pending, Vote saved) {
+        if (saved != null) {
+            voterRegistry.markVoted(saved.getVoterMobile(), pending.electionId(), pending.votingRound());
+            pending.result().complete(saved);
+        } else {
+            pending.result().completeExceptionally(
+                    new RuntimeException(voteBatchWriter.explainRejection(pending.vote())));
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package com.blockvote.service;
+
+import com.blockvote.config.VotingConfig;
+import com.blockvote.entity.Vote;
+import com.blockvote.repository.VoteRepository;
+import com.blockvote.util.VoteJournal;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Local append-only journal of admitted votes.
+ * Votes are journaled inside the group-commit transaction, before it commits; a rolled back
+ * group is compensated with REVOKE records. On startup the journal is replayed against the
+ * votes table to report (VERIFY) or re-insert (REBUILD) journaled votes that are missing,
+ * before accepted votes are recovered into the ingestion queue.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class VoteJournalService {
+
+    /**
+     * Order of the startup replay among the ApplicationReadyEvent listeners
+     */
+    public static final int REPLAY_ORDER = 0;
+
+    private static final int REPLAY_CHUNK = 1000;
+    private static final String CURRENT_ROUND_SQL = "SELECT COALESCE(voting_round, 0) FROM elections WHERE id = ?";
+    private static final String RESTORE_SQL = "INSERT INTO votes (id, voter_mobile, candidate_id, election_id, " +
+            "voting_round, voted_at, wallet_address) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final VotingConfig votingConfig;
+    private final VoteRepository voteRepository;
+    private final VoteCounterService voteCounterService;
+    private final VoterRegistryService voterRegistry;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private VoteJournal journal;
+
+    @PostConstruct
+    public void open() {
+        if (!votingConfig.getJournalEnabled()) {
+            return;
+        }
+        try {
+            journal = new VoteJournal(Path.of(votingConfig.getJournalDirectory()),
+                    votingConfig.getJournalSegmentRecords());
+            log.info("Vote journal opened at {} (last sequence {})",
+                    votingConfig.getJournalDirectory(), journal.lastSequence());
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to open vote journal: " + e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    /**
+     * Journal a group of saved votes before their transaction commits.
+     * If the transaction rolls back, the records are revoked.
+     */
+    public void append(List<VoteIngestionService.PendingVote> admitted) {
+        if (journal == null || admitted.isEmpty()) {
+            return;
+        }
+
+        long[] sequences = new long[admitted.size()];
+        for (int i = 0; i < admitted.size(); i++) {
+            Vote vote = admitted.get(i).vote();
+            sequences[i] = journal.append(VoteJournal.TYPE_VOTE, admitted.get(i).votingRound(), vote.getId(),
+                    admitted.get(i).electionId(), vote.getCandidateId(), toEpochMillis(vote.getVotedAt()),
+                    vote.getVoterMobile(), vote.getWalletAddress());
+        }
+        if (votingConfig.getJournalFsync()) {
+            journal.forceThrough(sequences[sequences.length - 1]);
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        revoke(sequences);
+                    }
+                }
+            });
+        }
+    }
+
+    private void revoke(long[] sequences) {
+        for (long sequence : sequences) {
+            journal.append(VoteJournal.TYPE_REVOKE, VoteJournal.NO_ROUND, sequence, 0, 0, 0, null, null);
+        }
+        journal.force();
+    }
+
+    public boolean isEnabled() {
+        return journal != null;
+    }
+
+    /**
+     * Journal a validated vote that has been accepted but not yet persisted, so an
+     * acknowledged vote survives a restart while it waits in the ingestion queue. Concurrent
+     * accepts share one flush.
+     *
+     * @return sequence of the ACCEPT record, to resolve once the vote is persisted or rejected
+     */
+    public long accept(Vote vote, Long electionId, int votingRound) {
+        long sequence = journal.append(VoteJournal.TYPE_ACCEPT, votingRound, votingRound, electionId,
+                vote.getCandidateId(), toEpochMillis(vote.getVotedAt()), vote.getVoterMobile(),
+                vote.getWalletAddress());
+        if (votingConfig.getJournalFsync()) {
+            journal.forceThrough(sequence);
+        }
+        return sequence;
+    }
+
+    /**
+     * Mark an accepted vote as final, whether it was persisted or rejected
+     */
+    public void resolve(long acceptSequence) {
+        journal.append(VoteJournal.TYPE_RESOLVE, VoteJournal.NO_ROUND, acceptSequence, 0, 0, 0, null, null);
+    }
+
+    /**
+     * Accepted votes that were never resolved, in acceptance order
+     */
+    public List<VoteJournal.JournalRecord> unresolvedAcceptances() throws IOException {
+        if (journal == null) {
+            return List.of();
+        }
+        Map<Long, VoteJournal.JournalRecord> accepted = new LinkedHashMap<>();
+        journal.forEach(record -> {
+            if (record.type() == VoteJournal.TYPE_ACCEPT) {
+                accepted.put(record.sequence(), record);
+            } else if (record.type() == VoteJournal.TYPE_RESOLVE) {
+                accepted.remove(record.voteId());
+            }
+        });
+        return new ArrayList<>(accepted.values());
+    }
+
+    /**
+     * Rebuild the vote of an ACCEPT record for the ingestion stage
+     */
+    public Vote acceptedVote(VoteJournal.JournalRecord record) {
+        Vote vote = new Vote();
+        vote.setVoterMobile(record.voterMobile());
+        vote.setCandidateId(record.candidateId());
+        vote.setElectionId(record.electionId());
+        vote.setVotingRound((int) record.voteId());
+        vote.setVotedAt(toLocalDateTime(record.votedAt()));
+        vote.setWalletAddress(record.walletAddress());
+        return vote;
+    }
+
+    /**
+     * Replay the journal against the votes table. Runs before accepted votes are recovered, and
+     * restores each chunk in its own transaction.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(REPLAY_ORDER)
+    public void replay() {
+        if (journal == null) {
+            return;
+        }
+
+        long started = System.currentTimeMillis();
+        boolean rebuild = "REBUILD".equalsIgnoreCase(votingConfig.getJournalReplay());
+        // First pass keeps only the revoked sequences; the second streams the votes in chunks
+        Set<Long> revoked = new HashSet<>();
+        List<VoteJournal.JournalRecord> chunk = new ArrayList<>(REPLAY_CHUNK);
+        ReplayTally tally = new ReplayTally(rebuild);
+        try {
+            journal.forEach(record -> {
+                if (record.type() == VoteJournal.TYPE_REVOKE) {
+                    revoked.add(record.voteId());
+                }
+            });
+            journal.forEach(record -> {
+                if (record.type() != VoteJournal.TYPE_VOTE || revoked.contains(record.sequence())) {
+                    return;
+                }
+                chunk.add(record);
+                if (chunk.size() == REPLAY_CHUNK) {
+                    tally.check(chunk);
+                    chunk.clear();
+                }
+            });
+            tally.check(chunk);
+        } catch (IOException e) {
+            log.error("Vote journal replay failed: {}", e.getMessage());
+            return;
+        }
+
+        if (tally.missing == 0) {
+            log.info("Vote journal verified: {} votes, all present ({} ms)",
+                    tally.votes, System.currentTimeMillis() - started);
+        } else if (rebuild) {
+            log.warn("Vote journal replay restored {} of {} missing votes ({} from other rounds, {} without a " +
+                    "round)", tally.restored, tally.missing, tally.otherRound, tally.noRound);
+        } else {
+            log.warn("Vote journal has {} votes missing from the votes table (first missing vote id {})",
+                    tally.missing, tally.firstMissing);
+        }
+    }
+
+    // Running counts of a replay; each chunk is checked (and restored) as it is read
+    private class ReplayTally {
+        private final boolean rebuild;
+        private final Map<Long, Integer> rounds = new HashMap<>();
+        private long votes;
+        private long missing;
+        private long restored;
+        private long otherRound;
+        private long noRound;
+        private Long firstMissing;
+
+        ReplayTally(boolean rebuild) {
+            this.rebuild = rebuild;
+        }
+
+        void check(List<VoteJournal.JournalRecord> chunk) {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            votes += chunk.size();
+            Set<Long> existing = new HashSet<>(voteRepository.findExistingIds(
+                    chunk.stream().map(VoteJournal.JournalRecord::voteId).toList()));
+            List<VoteJournal.JournalRecord> absent = new ArrayList<>();
+            for (VoteJournal.JournalRecord record : chunk) {
+                if (!existing.contains(record.voteId())) {
+                    absent.add(record);
+                }
+            }
+            if (absent.isEmpty()) {
+                return;
+            }
+            missing += absent.size();
+            if (firstMissing == null) {
+                firstMissing = absent.get(0).voteId();
+            }
+            if (rebuild) {
+                restored += restore(absent);
+            }
+        }
+
+        // Re-insert journaled votes of their election's current round, in one transaction per
+        // chunk. Each still passes the double-vote gate, so a voter who has voted since (or whose
+        // vote is otherwise present) is not counted twice.
+        private int restore(List<VoteJournal.JournalRecord> absent) {
+            List<VoteJournal.JournalRecord> current = new ArrayList<>();
+            for (VoteJournal.JournalRecord record : absent) {
+                if (record.round() == VoteJournal.NO_ROUND) {
+                    // Journaled before rounds were recorded; its round cannot be told apart
+                    noRound++;
+                } else if (record.round() != rounds.computeIfAbsent(record.electionId(),
+                        id -> jdbcTemplate.queryForObject(CURRENT_ROUND_SQL, Integer.class, id))) {
+                    // A later round started; the vote belongs to results that are already reset
+                    otherRound++;
+                } else {
+                    current.add(record);
+                }
+            }
+            if (current.isEmpty()) {
+                return 0;
+            }
+
+            List<VoteJournal.JournalRecord> inserted = transactionTemplate.execute(status -> insert(current));
+            inserted.forEach(record ->
+                    voterRegistry.markVoted(record.voterMobile(), record.electionId(), record.round()));
+            return inserted.size();
+        }
+    }
+
+    private List<VoteJournal.JournalRecord> insert(List<VoteJournal.JournalRecord> records) {
+        List<VoteJournal.JournalRecord> inserted = new ArrayList<>();
+        for (VoteJournal.JournalRecord record : records) {
+            int gated = jdbcTemplate.update(VoteBatchWriter.VOTE_GATE_SQL,
+                    record.electionId(), record.round(), record.voterMobile(), record.walletAddress());
+            if (gated == 0) {
+                continue;
+            }
+
+            jdbcTemplate.update(RESTORE_SQL, record.voteId(), record.voterMobile(), record.candidateId(),
+                    record.electionId(), record.round(), Timestamp.valueOf(toLocalDateTime(record.votedAt())),
+                    record.walletAddress());
+            voteCounterService.recordVote(record.electionId(), record.candidateId());
+            inserted.add(record);
+        }
+        return inserted;
+    }
+
+    private static long toEpochMillis(LocalDateTime time) {
+        return time == null ? 0 : time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,113 @@
+package com.blockvote.service;
+
+import com.blockvote.config.VotingConfig;
+import com.blockvote.dto.VoteReceipt;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * Tracks receipts for votes accepted in asynchronous mode.
+ * Status changes are pushed to /topic/vote-status/{receiptId}; the receipt id is random and
+ * only known to the voter, so the public topic does not expose who voted. The oldest receipts
+ * are dropped once receiptCapacity is reached.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class VoteReceiptService {
+
+    public static final String ACCEPTED = "ACCEPTED";
+    public static final String PERSISTED = "PERSISTED";
+    public static final String CONFIRMED = "CONFIRMED";
+    public static final String REJECTED = "REJECTED";
+    // Persisted, but its (simulated) chain confirmation was skipped - final like CONFIRMED
+    public static final String UNCONFIRMED = "UNCONFIRMED";
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final VotingConfig votingConfig;
+
+    private final Map<String, VoteReceipt> receipts = new ConcurrentHashMap<>();
+    private final Queue<String> insertionOrder = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Issue a receipt for a validated and enqueued vote
+     */
+    public VoteReceipt accept(String voterMobile) {
+        VoteReceipt receipt = new VoteReceipt(UUID.randomUUID().toString(), ACCEPTED,
+                null, null, null, null, null, LocalDateTime.now(), voterMobile);
+
+        receipts.put(receipt.getReceiptId(), receipt);
+        insertionOrder.add(receipt.getReceiptId());
+        while (receipts.size() > votingConfig.getReceiptCapacity()) {
+            String oldest = insertionOrder.poll();
+            if (oldest == null) {
+                break;
+            }
+            receipts.remove(oldest);
+        }
+
+        return receipt;
+    }
+
+    public void markPersisted(String receiptId, Long voteId, String proofToken) {
+        update(receiptId, PERSISTED, r -> {
+            r.setVoteId(voteId);
+            r.setProofToken(proofToken);
+        });
+    }
+
+    public void markConfirmed(String receiptId, String transactionHash, long blockNumber) {
+        update(receiptId, CONFIRMED, r -> {
+            r.setTransactionHash(transactionHash);
+            r.setBlockNumber(blockNumber);
+        });
+    }
+
+    public void markRejected(String receiptId, String reason) {
+        update(receiptId, REJECTED, r -> r.setMessage(reason));
+    }
+
+    public void markUnconfirmed(String receiptId, String reason) {
+        update(receiptId, UNCONFIRMED, r -> r.setMessage(reason));
+    }
+
+    public VoteReceipt getReceipt(String receiptId) {
+        VoteReceipt receipt = receipts.get(receiptId);
+        if (receipt == null) {
+            throw new RuntimeException("Vote receipt not found: " + receiptId);
+        }
+        return receipt;
+    }
+
+    // Receipts are replaced rather than mutated so readers always see a consistent copy
+    private void update(String receiptId, String status, Consumer<VoteReceipt> changes) {
+        VoteReceipt updated = receipts.computeIfPresent(receiptId, (id, current) -> {
+            VoteReceipt copy = new VoteReceipt(current.getReceiptId(), status, current.getVoteId(),
+                    current.getProofToken(), current.getTransactionHash(), current.getBlockNumber(), current.getMessage(),
+                    LocalDateTime.now(), current.getVoterMobile());
+            changes.accept(copy);
+            return copy;
+        });
+
+        if (updated == null) {
+            log.debug("Receipt {} expired before reaching {}", receiptId, status);
+            return;
+        }
+
+        try {
+            messagingTemplate.convertAndSend("/topic/vote-status/" + updated.getReceiptId(), updated);
+        } catch (Exception e) {
+            log.error("Error broadcasting vote status for receipt {}", receiptId, e);
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.blockvote.service;
+
+import com.blockvote.entity.User;
+import com.blockvote.util.AtomicBitSet;
+import com.blockvote.util.MobileNumberIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory registry of all users keyed by mobile number, used to reject unknown users,
+ * unverified wallets and repeat voters without touching the database.
+ * Voting status is kept per election and voting round, as a bit per user id, sized to the
+ * highest user id seen. Each election's set is loaded once, without blocking other elections.
+ * The database stays authoritative; the registry only answers once it has been loaded.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class VoterRegistryService {
+
+    private static final String LOAD_SQL =
+            "SELECT id, mobile_number, wallet_verified, role FROM users";
+    private static final String VOTED_SQL =
+            "SELECT user_id FROM election_voters WHERE election_id = ? AND voting_round = ?";
+    private static final String HAS_VOTED_SQL =
+            "SELECT COUNT(*) FROM election_voters WHERE election_id = ? AND user_id = ? AND voting_round = ?";
+    private static final String ACTIVE_ELECTIONS_SQL =
+            "SELECT id, COALESCE(voting_round, 0) AS voting_round FROM elections WHERE status = 'ACTIVE'";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final MobileNumberIndex index = new MobileNumberIndex(1024);
+    private final Map<Long, CompletableFuture<VotedSet>> voted = new ConcurrentHashMap<>();
+    private final AtomicLong maxUserId = new AtomicLong();
+    private volatile boolean ready;
+
+    /**
+     * Registry entry for one user
+     */
+    public record VoterEntry(long userId, boolean walletVerified, boolean admin) {
+    }
+
+    // Users who voted in one round of an election
+    private record VotedSet(int round, AtomicBitSet userIds) {
+    }
+
+    /**
+     * Load every user with a streaming cursor once the application has started
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        long started = System.currentTimeMillis();
+        try {
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(LOAD_SQL);
+                ps.setFetchSize(10000);
+                return ps;
+            }, (RowCallbackHandler) rs -> {
+                long mobile = parse(rs.getString("mobile_number"));
+                long userId = rs.getLong("id");
+                if (userId > MobileNumberIndex.MAX_USER_ID) {
+                    throw new IllegalStateException("user id " + userId + " does not fit the registry");
+                }
+                maxUserId.accumulateAndGet(userId, Math::max);
+                if (mobile >= 0) {
+                    index.put(mobile, userId, flags(rs.getBoolean("wallet_verified"),
+                            "ADMIN".equals(rs.getString("role"))));
+                }
+            });
+            jdbcTemplate.query(ACTIVE_ELECTIONS_SQL, (RowCallbackHandler) rs ->
+                    votedSet(rs.getLong("id"), rs.getInt("voting_round")));
+            ready = true;
+            log.info("Voter registry loaded: {} users, {} KB, {} active elections in {} ms",
+                    index.size(), index.memoryBytes() / 1024, voted.size(), System.currentTimeMillis() - started);
+        } catch (Exception e) {
+            // Without a complete registry every lookup falls back to the database
+            log.warn("Voter registry disabled: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Whether the registry can answer for this mobile number
+     */
+    public boolean isAuthoritative(String mobileNumber) {
+        return ready && parse(mobileNumber) >= 0;
+    }
+
+    /**
+     * Registry entry for the mobile number, or null if no such user is registered
+     */
+    public VoterEntry find(String mobileNumber) {
+        long value = index.get(parse(mobileNumber));
+        if (value == MobileNumberIndex.NOT_FOUND) {
+            return null;
+        }
+        return new VoterEntry(
+                MobileNumberIndex.userId(value),
+                MobileNumberIndex.hasFlag(value, MobileNumberIndex.WALLET_VERIFIED),
+                MobileNumberIndex.hasFlag(value, MobileNumberIndex.ADMIN));
+    }
+
+    public void register(User user) {
+        long mobile = parse(user.getMobileNumber());
+        if (mobile < 0) {
+            return;
+        }
+        if (user.getId() > MobileNumberIndex.MAX_USER_ID) {
+            ready = false;
+            log.warn("User {} does not fit the voter registry - registry disabled", user.getId());
+            return;
+        }
+        maxUserId.accumulateAndGet(user.getId(), Math::max);
+        index.put(mobile, user.getId(),
+                flags(user.isWalletVerified(), "ADMIN".equals(user.getRole())));
+    }
+
+    public void markWalletVerified(String mobileNumber) {
+        index.updateFlags(parse(mobileNumber), MobileNumberIndex.WALLET_VERIFIED, 0);
+    }
+
+    /**
+     * Whether the user voted in the given round of the election.
+     * Answered from memory once loaded, from election_voters otherwise.
+     */
+    public boolean hasVoted(long userId, Long electionId, int round) {
+        if (electionId == null) {
+            return false;
+        }
+        if (!ready) {
+            Integer count = jdbcTemplate.queryForObject(HAS_VOTED_SQL, Integer.class, electionId, userId, round);
+            return count != null && count > 0;
+        }
+        VotedSet set = votedSet(electionId, round);
+        return set != null && set.userIds().get(userId);
+    }
+
+    /**
+     * Record a committed vote; ignored if the election has moved on to a later round
+     */
+    public void markVoted(String mobileNumber, Long electionId, int round) {
+        long value = index.get(parse(mobileNumber));
+        if (value == MobileNumberIndex.NOT_FOUND || electionId == null) {
+            return;
+        }
+        VotedSet set = votedSet(electionId, round);
+        if (set != null) {
+            set.userIds().set(MobileNumberIndex.userId(value));
+        }
+    }
+
+    /**
+     * Drop the voting status of an election, e.g. once it is no longer active
+     */
+    public void forget(Long electionId) {
+        voted.remove(electionId);
+    }
+
+    // Voted set for the round, loaded from election_voters on first use; null for a past round.
+    // One caller loads it while others asking for the same election wait on its future.
+    private VotedSet votedSet(Long electionId, int round) {
+        while (true) {
+            CompletableFuture<VotedSet> current = voted.get(electionId);
+            if (current != null) {
+                VotedSet set;
+                try {
+                    set = current.join();
+                } catch (CompletionException e) {
+                    // The load failed and was removed; the next attempt loads it again
+                    voted.remove(electionId, current);
+                    continue;
+                }
+                if (set.round() >= round) {
+                    return set.round() == round ? set : null;
+                }
+            }
+
+            CompletableFuture<VotedSet> loading = new CompletableFuture<>();
+            boolean claimed = current == null
+                    ? voted.putIfAbsent(electionId, loading) == null
+                    : voted.replace(electionId, current, loading);
+            if (!claimed) {
+                continue;
+            }
+            try {
+                loading.complete(loadVoted(electionId, round));
+            } catch (RuntimeException e) {
+                voted.remove(electionId, loading);
+                loading.completeExceptionally(e);
+                throw e;
+            }
+        }
+    }
+
+    private VotedSet loadVoted(Long electionId, int round) {
+        AtomicBitSet userIds = new AtomicBitSet(MobileNumberIndex.MAX_USER_ID + 1, maxUserId.get() + 1);
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(VOTED_SQL);
+            ps.setFetchSize(10000);
+            ps.setLong(1, electionId);
+            ps.setInt(2, round);
+            return ps;
+        }, (RowCallbackHandler) rs -> userIds.set(rs.getLong("user_id")));
+        return new VotedSet(round, userIds);
+    }
+
+    private static int flags(boolean walletVerified, boolean admin) {
+        return (walletVerified ? MobileNumberIndex.WALLET_VERIFIED : 0)
+                | (admin ? MobileNumberIndex.ADMIN : 0);
+    }
+
+    // Mobile numbers are 10 digits (see AuthService.register); anything else is not indexed
+    private static long parse(String mobileNumber) {
+        if (mobileNumber == null || mobileNumber.length() != 10) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = 0; i < 10; i++) {
+            char c = mobileNumber.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
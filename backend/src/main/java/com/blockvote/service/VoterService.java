@@ -1,144 +1,249 @@
 package com.blockvote.service;
 
+import com.blockvote.dto.VoteReceipt;
 import com.blockvote.dto.VoteRequest;
 import com.blockvote.entity.Candidate;
-import com.blockvote.entity.Election;
 import com.blockvote.entity.User;
 import com.blockvote.entity.Vote;
 import com.blockvote.repository.CandidateRepository;
-import com.blockvote.repository.ElectionRepository;
 import com.blockvote.repository.UserRepository;
-import com.blockvote.repository.VoteRepository;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiConsumer;
 
 @Service
 @RequiredArgsConstructor
 public class VoterService {
 
     private final CandidateRepository candidateRepository;
-    private final VoteRepository voteRepository;
     private final UserRepository userRepository;
-    private final ElectionRepository electionRepository;
     private final BlockchainConsoleService consoleService;
-
-    public List<Candidate> getCandidates() {
-        Election currentElection = electionRepository.findTopByOrderByCreatedAtDesc().orElse(null);
-        if (currentElection == null) {
+    private final VoteCounterService voteCounterService;
+    private final VoteIngestionService voteIngestionService;
+    private final ElectionContextService electionContextService;
+    private final VoterRegistryService voterRegistry;
+    private final VoteReceiptService voteReceiptService;
+    private final SimulatedChainScheduler chainScheduler;
+    private final VoteJournalService voteJournalService;
+    private final MerkleService merkleService;
+
+    private final ExecutorService acceptanceCallbacks = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "vote-acceptance-callbacks");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Active candidates of an election, or of the current election when electionId is null
+     */
+    public List<Candidate> getCandidates(Long electionId) {
+        ElectionContext election = electionContextService.get(electionId);
+        if (!election.exists()) {
             return List.of();
         }
-        return candidateRepository.findByElectionIdAndIsActiveTrue(currentElection.getId());
+        return voteCounterService.withLiveCounts(
+                candidateRepository.findByElectionIdAndIsActiveTrue(election.electionId()));
+    }
+
+    /**
+     * Elections that are open for voting
+     */
+    public List<Map<String, Object>> getActiveElections() {
+        return electionContextService.open().stream()
+                .filter(ElectionContext::isActive)
+                .map(context -> {
+                    Map<String, Object> election = new LinkedHashMap<>();
+                    election.put("id", context.electionId());
+                    election.put("title", context.title());
+                    election.put("status", context.status());
+                    election.put("candidateCount", context.activeCandidates().size());
+                    return election;
+                })
+                .toList();
     }
 
-    @Transactional
+    // Not transactional: validation only reads, and the vote is committed by the ingestion stage
     public Vote castVote(VoteRequest request) {
-        // Check if election is active
-        Election election = electionRepository.findTopByOrderByCreatedAtDesc()
-                .orElseThrow(() -> new RuntimeException("No election found"));
+        ValidatedVote validated = validateVote(request);
 
-        if (!"ACTIVE".equals(election.getStatus())) {
-            throw new RuntimeException("Election is not active");
-        }
+        Vote savedVote = voteIngestionService.submit(validated.vote(), validated.electionId(),
+                validated.votingRound());
+        simulateChainConfirmation(validated.candidate(), savedVote, null, null);
 
-        // Check if user exists
-        User user = userRepository.findByMobileNumber(request.getMobileNumber())
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        savedVote.setProofToken(merkleService.proofToken(savedVote.getId()));
+        return savedVote;
+    }
 
-        // CRITICAL: Enforce wallet verification before voting
-        if (!user.isWalletVerified()) {
-            throw new RuntimeException(
-                    "Wallet not verified! Please connect and verify your MetaMask wallet before voting.");
+    /**
+     * Asynchronous acceptance: validate the vote and make it durable, then return a receipt.
+     * With the vote journal enabled the vote is durable once its ACCEPT record is journaled and
+     * is committed by the ingestion stage afterwards (or recovered from the journal after a
+     * restart); without the journal the receipt is only issued after the vote has committed.
+     * Persistence and the (simulated) chain confirmation are reported through the receipt.
+     */
+    public VoteReceipt acceptVote(VoteRequest request) {
+        ValidatedVote validated = validateVote(request);
+
+        CompletableFuture<Vote> persisted;
+        if (voteJournalService.isEnabled()) {
+            long acceptSequence = voteJournalService.accept(validated.vote(), validated.electionId(),
+                    validated.votingRound());
+            try {
+                persisted = voteIngestionService.enqueue(validated.vote(), validated.electionId(),
+                        validated.votingRound());
+            } catch (RuntimeException e) {
+                voteJournalService.resolve(acceptSequence);
+                throw e;
+            }
+            persisted = persisted.whenCompleteAsync((savedVote, error) ->
+                    voteJournalService.resolve(acceptSequence), acceptanceCallbacks);
+        } else {
+            persisted = CompletableFuture.completedFuture(voteIngestionService.submit(validated.vote(),
+                    validated.electionId(), validated.votingRound()));
         }
+        VoteReceipt receipt = voteReceiptService.accept(request.getMobileNumber());
+
+        // Off the ingestion writer thread, so receipt updates never hold up the next group commit
+        persisted.whenCompleteAsync((savedVote, error) -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                voteReceiptService.markRejected(receipt.getReceiptId(), cause.getMessage());
+                return;
+            }
+            voteReceiptService.markPersisted(receipt.getReceiptId(), savedVote.getId(),
+                    merkleService.proofToken(savedVote.getId()));
+            simulateChainConfirmation(validated.candidate(), savedVote, (txHash, blockNumber) ->
+                    voteReceiptService.markConfirmed(receipt.getReceiptId(), txHash, blockNumber),
+                    () -> voteReceiptService.markUnconfirmed(receipt.getReceiptId(),
+                            "Vote recorded; the simulated chain confirmation was skipped under load"));
+        }, acceptanceCallbacks);
+
+        return receipt;
+    }
 
-        if (user.getRegisteredWalletAddress() == null) {
-            throw new RuntimeException(
-                    "No wallet registered! Please connect your MetaMask wallet first.");
+    @PreDestroy
+    public void shutdown() {
+        acceptanceCallbacks.shutdown();
+    }
+
+    public VoteReceipt getVoteStatus(String receiptId) {
+        return voteReceiptService.getReceipt(receiptId);
+    }
+
+    /**
+     * A vote that passed validation, ready for the ingestion stage
+     */
+    private record ValidatedVote(Vote vote, Long electionId, int votingRound,
+            ElectionContext.CandidateEntry candidate) {
+    }
+
+    private ValidatedVote validateVote(VoteRequest request) {
+        // Check if election is active (in-memory snapshot, no database read)
+        ElectionContext election = electionContextService.get(request.getElectionId());
+        if (!election.exists()) {
+            throw new RuntimeException("No election found");
         }
 
-        // Verify the wallet address matches the registered one
-        String normalizedRegistered = user.getRegisteredWalletAddress().toLowerCase();
-        String normalizedProvided = request.getWalletAddress().toLowerCase();
+        if (!election.isActive()) {
+            throw new RuntimeException("Election is not active");
+        }
 
-        if (!normalizedRegistered.equals(normalizedProvided)) {
+        if (request.getWalletAddress() == null || request.getWalletAddress().isBlank()) {
             throw new RuntimeException(
-                    "Wallet address mismatch! You must vote with your registered wallet address.");
+                    "No wallet registered! Please connect your MetaMask wallet first.");
         }
 
-        // Check if user has already voted in this election
-        if (user.isHasVoted()) {
-            throw new RuntimeException("You have already voted in this election");
+        // Fast rejections from the in-memory voter registry (no database read)
+        if (voterRegistry.isAuthoritative(request.getMobileNumber())) {
+            VoterRegistryService.VoterEntry voter = voterRegistry.find(request.getMobileNumber());
+            if (voter == null) {
+                throw new RuntimeException("User not found");
+            }
+            if (!voter.walletVerified()) {
+                throw new RuntimeException(
+                        "Wallet not verified! Please connect and verify your MetaMask wallet before voting.");
+            }
+            if (voterRegistry.hasVoted(voter.userId(), election.electionId(), election.votingRound())) {
+                throw new RuntimeException("You have already voted in this election");
+            }
         }
 
-        // Find candidate and verify it belongs to current election
-        Candidate candidate = candidateRepository.findById(request.getCandidateId())
-                .orElseThrow(() -> new RuntimeException("Candidate not found"));
+        // The authoritative voter checks (exists, wallet verified, registered wallet matches,
+        // not voted in this round yet) are enforced atomically by the election_voters insert in
+        // the commit - see VoteBatchWriter
 
-        if (!candidate.getElectionId().equals(election.getId())) {
+        // Find candidate and verify it belongs to current election
+        ElectionContext.CandidateEntry candidate = election.candidate(request.getCandidateId());
+        if (candidate == null) {
             throw new RuntimeException("Invalid candidate for current election");
         }
 
-        if (!candidate.getIsActive()) {
+        if (!candidate.active()) {
             throw new RuntimeException("Candidate is not active in this election");
         }
 
-        // Increment vote count for candidate
-        candidate.setVoteCount(candidate.getVoteCount() + 1);
-        candidateRepository.save(candidate);
-
-        // Update election total votes
-        election.setTotalVotes(election.getTotalVotes() + 1);
-        electionRepository.save(election);
-
-        // Mark user as voted
-        user.setHasVoted(true);
-        userRepository.save(user);
-
-        // Record vote (for audit trail)
+        // Record vote (for audit trail). The ingestion stage gates the voter, inserts the vote
+        // and increments the candidate and election counters in one group commit.
         Vote vote = new Vote();
         vote.setVoterMobile(request.getMobileNumber());
         vote.setCandidateId(request.getCandidateId());
+        vote.setElectionId(election.electionId());
+        vote.setVotingRound(election.votingRound());
         vote.setWalletAddress(request.getWalletAddress());
         vote.setVotedAt(LocalDateTime.now());
 
-        Vote savedVote = voteRepository.save(vote);
-
-        // Simulate blockchain transaction sequence
+        return new ValidatedVote(vote, election.electionId(), election.votingRound(), candidate);
+    }
 
+    /**
+     * Simulate the blockchain transaction sequence for a persisted vote.
+     * onConfirmed (optional) receives the transaction hash and block number; onDropped (optional)
+     * runs instead when the scheduler skips the confirmation.
+     */
+    private void simulateChainConfirmation(ElectionContext.CandidateEntry candidate, Vote savedVote,
+            BiConsumer<String, Long> onConfirmed, Runnable onDropped) {
         // Generate a fake transaction hash for simulation
         String txHash = "0x" + Long.toHexString(System.currentTimeMillis()) +
-                Integer.toHexString(request.getWalletAddress().hashCode()).substring(0, 6);
+                Integer.toHexString(savedVote.getWalletAddress().hashCode()).substring(0, 6);
 
         // Step 1: Vote transaction submitted
-        consoleService.broadcastVoteTransactionSubmitted(candidate.getName(), txHash);
-
-        // Step 2: Transaction enters mempool (simulate async)
-        new Thread(() -> {
-            try {
-                Thread.sleep(1000); // Simulate network delay
-                consoleService.broadcastTransactionInMempool(txHash);
-
-                Thread.sleep(2000); // Simulate mining time
-                // Step 3: Transaction confirmed
-                long blockNumber = 2039220L + savedVote.getId(); // Simulate incrementing block numbers
-                consoleService.broadcastTransactionConfirmed(txHash, blockNumber);
+        consoleService.broadcastVoteTransactionSubmitted(candidate.name(), txHash);
 
-                // Step 4: Vote recorded in smart contract
-                consoleService.broadcastBlockchainActivity(
-                        String.format("Smart contract updated: %s vote count incremented", candidate.getName()));
-
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
+        // Step 2: Transaction enters mempool and is confirmed in the next simulated block
+        chainScheduler.submitTransaction(txHash, blockNumber -> {
+            if (onConfirmed != null) {
+                onConfirmed.accept(txHash, blockNumber);
             }
-        }).start();
-
-        return savedVote;
+        }, onDropped);
     }
 
-    public boolean hasVoted(String mobileNumber) {
-        return voteRepository.existsByVoterMobile(mobileNumber);
+    /**
+     * Whether the user has voted in the current round of an election, or of the current election
+     * when electionId is null
+     */
+    public boolean hasVoted(String mobileNumber, Long electionId) {
+        ElectionContext election = electionContextService.get(electionId);
+        if (!election.exists()) {
+            return false;
+        }
+        Long userId;
+        if (voterRegistry.isAuthoritative(mobileNumber)) {
+            VoterRegistryService.VoterEntry voter = voterRegistry.find(mobileNumber);
+            userId = voter == null ? null : voter.userId();
+        } else {
+            userId = userRepository.findByMobileNumber(mobileNumber).map(User::getId).orElse(null);
+        }
+        return userId != null && voterRegistry.hasVoted(userId, election.electionId(), election.votingRound());
     }
 }
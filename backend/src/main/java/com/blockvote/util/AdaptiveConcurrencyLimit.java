@@ -0,0 +1,127 @@
+package com.blockvote.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Concurrency limit that adapts to observed latency, after TCP Vegas.
+ *
+ * The lowest latency seen approximates the no-load latency. For each completed request the
+ * number of requests queued in the system is estimated as limit * (1 - minRtt / rtt):
+ * below alpha the limit grows, above beta it shrinks, and a failed request shrinks it too.
+ * Requests beyond the limit are rejected instead of queueing.
+ */
+public class AdaptiveConcurrencyLimit {
+
+    // Forget the no-load latency every N samples so a permanently slower backend is re-learned
+    private static final int MIN_RTT_RESET_SAMPLES = 1000;
+
+    private final int minLimit;
+    private final int maxLimit;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    private volatile int limit;
+    private double estimatedLimit;
+    private long minRttNanos = Long.MAX_VALUE;
+    private long lastRttNanos;
+    private int samples;
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.estimatedLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.limit = (int) estimatedLimit;
+    }
+
+    /**
+     * Take a slot if the limit allows it
+     *
+     * @return start time to pass to release(), or -1 if the request must be rejected
+     */
+    public long tryAcquire() {
+        int current = inFlight.get();
+        while (current < limit) {
+            if (inFlight.compareAndSet(current, current + 1)) {
+                accepted.incrementAndGet();
+                return System.nanoTime();
+            }
+            current = inFlight.get();
+        }
+        rejected.incrementAndGet();
+        return -1;
+    }
+
+    /**
+     * Give the slot back and feed the request latency into the limit
+     *
+     * @param failed whether the request failed in a way that signals overload
+     */
+    public void release(long startNanos, boolean failed) {
+        long rtt = System.nanoTime() - startNanos;
+        int concurrent = inFlight.getAndDecrement();
+        if (failed) {
+            dropped.incrementAndGet();
+        }
+        update(rtt, concurrent, failed);
+    }
+
+    private synchronized void update(long rtt, int concurrent, boolean failed) {
+        lastRttNanos = rtt;
+        if (++samples >= MIN_RTT_RESET_SAMPLES) {
+            samples = 0;
+            minRttNanos = rtt;
+        } else if (rtt > 0 && rtt < minRttNanos) {
+            minRttNanos = rtt;
+        }
+
+        double step = Math.max(1.0, Math.log10(estimatedLimit));
+        if (failed) {
+            estimatedLimit -= step;
+        } else if (concurrent * 2 >= estimatedLimit) {
+            // Only adjust when the limit is actually being exercised
+            double queued = estimatedLimit * (1 - (double) minRttNanos / rtt);
+            double alpha = 3 * step;
+            double beta = 6 * step;
+            if (queued < alpha) {
+                estimatedLimit += step;
+            } else if (queued > beta) {
+                estimatedLimit -= step;
+            }
+        }
+
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, estimatedLimit));
+        limit = (int) estimatedLimit;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getAccepted() {
+        return accepted.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public synchronized long getMinRttMicros() {
+        return minRttNanos == Long.MAX_VALUE ? 0 : minRttNanos / 1000;
+    }
+
+    public synchronized long getLastRttMicros() {
+        return lastRttNanos / 1000;
+    }
+}
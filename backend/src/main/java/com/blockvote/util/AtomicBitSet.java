@@ -0,0 +1,99 @@
+package com.blockvote.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free bit set over [0, capacity), allocated in 8 KB pages (65536 bits) on first set,
+ * so a sparse set of user ids only costs the pages it touches. The page directory starts at
+ * the expected size and grows when a higher bit is set; only adding a page or growing the
+ * directory takes a lock.
+ */
+public class AtomicBitSet {
+
+    private static final int PAGE_SHIFT = 16;
+    private static final int PAGE_MASK = (1 << PAGE_SHIFT) - 1;
+
+    private final long capacity;
+    private volatile AtomicReferenceArray<AtomicLongArray> pages;
+
+    public AtomicBitSet(long capacity) {
+        this(capacity, capacity);
+    }
+
+    /**
+     * Bit set over [0, capacity) whose directory initially covers [0, expected)
+     */
+    public AtomicBitSet(long capacity, long expected) {
+        this.capacity = capacity;
+        this.pages = new AtomicReferenceArray<>(pageCount(Math.min(Math.max(expected, 1), capacity)));
+    }
+
+    public boolean get(long index) {
+        if (index < 0 || index >= capacity) {
+            return false;
+        }
+        AtomicReferenceArray<AtomicLongArray> directory = pages;
+        int pageIndex = (int) (index >>> PAGE_SHIFT);
+        if (pageIndex >= directory.length()) {
+            return false;
+        }
+        AtomicLongArray page = directory.get(pageIndex);
+        int bit = (int) (index & PAGE_MASK);
+        return page != null && (page.get(bit >>> 6) & (1L << bit)) != 0;
+    }
+
+    /**
+     * Set the bit; returns false if it was already set
+     */
+    public boolean set(long index) {
+        if (index < 0 || index >= capacity) {
+            throw new IndexOutOfBoundsException("Bit " + index + " outside capacity " + capacity);
+        }
+        int pageIndex = (int) (index >>> PAGE_SHIFT);
+        AtomicReferenceArray<AtomicLongArray> directory = pages;
+        AtomicLongArray page = pageIndex < directory.length() ? directory.get(pageIndex) : null;
+        if (page == null) {
+            page = addPage(pageIndex);
+        }
+        int bit = (int) (index & PAGE_MASK);
+        long mask = 1L << bit;
+        long previous = page.getAndAccumulate(bit >>> 6, mask, (current, m) -> current | m);
+        return (previous & mask) == 0;
+    }
+
+    public long memoryBytes() {
+        AtomicReferenceArray<AtomicLongArray> directory = pages;
+        long bytes = 16L + 4L * directory.length();
+        for (int i = 0; i < directory.length(); i++) {
+            if (directory.get(i) != null) {
+                bytes += 8L << (PAGE_SHIFT - 6);
+            }
+        }
+        return bytes;
+    }
+
+    // Serialized with growing, so a page added to a directory being copied is never lost
+    private synchronized AtomicLongArray addPage(int pageIndex) {
+        AtomicReferenceArray<AtomicLongArray> directory = pages;
+        if (pageIndex >= directory.length()) {
+            int length = Math.min(Math.max(pageIndex + 1, directory.length() * 2), pageCount(capacity));
+            AtomicReferenceArray<AtomicLongArray> grown = new AtomicReferenceArray<>(length);
+            for (int i = 0; i < directory.length(); i++) {
+                grown.set(i, directory.get(i));
+            }
+            pages = grown;
+            directory = grown;
+        }
+        AtomicLongArray page = directory.get(pageIndex);
+        if (page == null) {
+            page = new AtomicLongArray(1 << (PAGE_SHIFT - 6));
+            directory.set(pageIndex, page);
+        }
+        return page;
+    }
+
+    private static int pageCount(long bits) {
+        return (int) ((bits + PAGE_MASK) >>> PAGE_SHIFT);
+    }
+}
@@ -0,0 +1,236 @@
+package com.blockvote.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpServer;
+import org.java_websocket.WebSocket;
+import org.java_websocket.handshake.ClientHandshake;
+import org.java_websocket.server.WebSocketServer;
+import org.web3j.abi.EventEncoder;
+import org.web3j.abi.TypeReference;
+import org.web3j.abi.datatypes.Address;
+import org.web3j.abi.datatypes.Event;
+import org.web3j.abi.datatypes.generated.Uint256;
+import org.web3j.crypto.Hash;
+import org.web3j.utils.Numeric;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Offline stand-in for an Ethereum node, to exercise the blockchain listener without Hardhat.
+ * Serves the JSON-RPC calls the listener makes over HTTP and WebSocket (eth_blockNumber,
+ * eth_getBlockByNumber, eth_getLogs, eth_subscribe to logs) and mines one block with a VoteCast
+ * log every blockIntervalMs. With dropEveryMs it closes all WebSocket connections on that
+ * period, to try reconnects and the fallback to polling:
+ *
+ * <pre>
+ *   ChainStubTool &lt;contractAddress&gt; &lt;httpPort&gt; &lt;wsPort&gt; &lt;blockIntervalMs&gt; [dropEveryMs]
+ * </pre>
+ *
+ * Point blockchain.rpc-url and blockchain.ws-url at the ports and compare the voteLatency of
+ * both transports in GET /admin/blockchain/listener.
+ */
+public class ChainStubTool {
+
+    private static final String VOTE_CAST_TOPIC = EventEncoder.encode(new Event("VoteCast",
+            List.of(new TypeReference<Address>(true) {
+            }, new TypeReference<Uint256>(false) {
+            })));
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String contractAddress;
+    private final List<ObjectNode> blocks = new ArrayList<>();
+    private final List<ObjectNode> logs = new ArrayList<>();
+    // Subscription id to the connection it was opened on
+    private final Map<String, WebSocket> subscriptions = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+
+    private ChainStubTool(String contractAddress) {
+        this.contractAddress = contractAddress.toLowerCase();
+        mine(false);
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 4) {
+            System.err.println("Usage: ChainStubTool <contractAddress> <httpPort> <wsPort> <blockIntervalMs> [dropEveryMs]");
+            System.exit(2);
+        }
+        ChainStubTool chain = new ChainStubTool(args[0]);
+        long blockInterval = Long.parseLong(args[3]);
+        long dropEvery = args.length > 4 ? Long.parseLong(args[4]) : 0;
+
+        HttpServer http = HttpServer.create(new InetSocketAddress(Integer.parseInt(args[1])), 0);
+        http.createContext("/", exchange -> {
+            byte[] response;
+            try (InputStream in = exchange.getRequestBody()) {
+                response = chain.objectMapper.writeValueAsBytes(chain.handle(chain.objectMapper.readTree(in), null));
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        });
+        http.start();
+
+        WebSocketServer ws = new WebSocketServer(new InetSocketAddress(Integer.parseInt(args[2]))) {
+            @Override
+            public void onOpen(WebSocket conn, ClientHandshake handshake) {
+            }
+
+            @Override
+            public void onClose(WebSocket conn, int code, String reason, boolean remote) {
+                chain.subscriptions.values().removeIf(c -> c == conn);
+            }
+
+            @Override
+            public void onMessage(WebSocket conn, String message) {
+                try {
+                    conn.send(chain.objectMapper.writeValueAsString(chain.handle(chain.objectMapper.readTree(message), conn)));
+                } catch (Exception e) {
+                    System.err.println("Bad request: " + e.getMessage());
+                }
+            }
+
+            @Override
+            public void onError(WebSocket conn, Exception e) {
+                System.err.println("WebSocket error: " + e.getMessage());
+            }
+
+            @Override
+            public void onStart() {
+            }
+        };
+        ws.start();
+
+        ScheduledExecutorService miner = Executors.newSingleThreadScheduledExecutor();
+        miner.scheduleAtFixedRate(() -> chain.mine(true), blockInterval, blockInterval, TimeUnit.MILLISECONDS);
+        if (dropEvery > 0) {
+            miner.scheduleAtFixedRate(() -> {
+                System.out.println("Dropping " + ws.getConnections().size() + " WebSocket connections");
+                ws.getConnections().forEach(WebSocket::close);
+            }, dropEvery, dropEvery, TimeUnit.MILLISECONDS);
+        }
+        System.out.printf("Chain stub for %s: http://127.0.0.1:%s ws://127.0.0.1:%s, a block every %d ms%n",
+                args[0], args[1], args[2], blockInterval);
+    }
+
+    // Append a block, with one VoteCast log if vote is set, and push the log to subscribers
+    private synchronized void mine(boolean vote) {
+        long number = blocks.size();
+        String parentHash = number == 0 ? Numeric.toHexStringWithPrefixZeroPadded(BigInteger.ZERO, 64)
+                : blocks.get(blocks.size() - 1).get("hash").asText();
+        String hash = Hash.sha3String(parentHash + number);
+
+        ObjectNode block = objectMapper.createObjectNode();
+        block.put("number", Numeric.encodeQuantity(BigInteger.valueOf(number)));
+        block.put("hash", hash);
+        block.put("parentHash", parentHash);
+        block.put("timestamp", Numeric.encodeQuantity(BigInteger.valueOf(System.currentTimeMillis() / 1000)));
+        block.putArray("transactions");
+        blocks.add(block);
+
+        if (vote) {
+            ObjectNode eventLog = objectMapper.createObjectNode();
+            eventLog.put("removed", false);
+            eventLog.put("logIndex", "0x0");
+            eventLog.put("transactionIndex", "0x0");
+            eventLog.put("transactionHash", Hash.sha3String("tx" + number));
+            eventLog.put("blockHash", hash);
+            eventLog.put("blockNumber", block.get("number").asText());
+            eventLog.put("address", contractAddress);
+            eventLog.put("data", Numeric.toHexStringWithPrefixZeroPadded(BigInteger.valueOf(1 + number % 3), 64));
+            ArrayNode topics = eventLog.putArray("topics");
+            topics.add(VOTE_CAST_TOPIC);
+            topics.add(Numeric.toHexStringWithPrefixZeroPadded(BigInteger.valueOf(0x1000 + number), 64));
+            logs.add(eventLog);
+
+            subscriptions.forEach((id, conn) -> {
+                ObjectNode notification = objectMapper.createObjectNode();
+                notification.put("jsonrpc", "2.0");
+                notification.put("method", "eth_subscription");
+                ObjectNode params = notification.putObject("params");
+                params.put("subscription", id);
+                params.set("result", eventLog);
+                if (conn.isOpen()) {
+                    conn.send(notification.toString());
+                }
+            });
+        }
+    }
+
+    private synchronized ObjectNode handle(JsonNode request, WebSocket conn) {
+        ObjectNode response = objectMapper.createObjectNode();
+        response.put("jsonrpc", "2.0");
+        response.set("id", request.get("id"));
+        JsonNode params = request.path("params");
+        long head = blocks.size() - 1;
+
+        switch (request.path("method").asText()) {
+            case "web3_clientVersion" -> response.put("result", "ChainStub/1.0");
+            case "eth_chainId" -> response.put("result", "0x7a69");
+            case "eth_blockNumber" -> response.put("result", Numeric.encodeQuantity(BigInteger.valueOf(head)));
+            case "eth_getBlockByNumber" -> {
+                long number = blockNumber(params.path(0).asText(), head);
+                if (number >= 0 && number <= head) {
+                    response.set("result", blocks.get((int) number));
+                } else {
+                    response.putNull("result");
+                }
+            }
+            case "eth_getLogs" -> {
+                JsonNode filter = params.path(0);
+                long from = blockNumber(filter.path("fromBlock").asText("latest"), head);
+                long to = blockNumber(filter.path("toBlock").asText("latest"), head);
+                ArrayNode result = response.putArray("result");
+                for (ObjectNode eventLog : logs) {
+                    long number = Numeric.decodeQuantity(eventLog.get("blockNumber").asText()).longValue();
+                    if (number >= from && number <= to) {
+                        result.add(eventLog);
+                    }
+                }
+            }
+            case "eth_subscribe" -> {
+                if (conn == null || !"logs".equals(params.path(0).asText())) {
+                    return error(response, "Only log subscriptions over WebSocket are supported");
+                }
+                String id = Numeric.encodeQuantity(BigInteger.valueOf(ids.incrementAndGet()));
+                subscriptions.put(id, conn);
+                response.put("result", id);
+            }
+            case "eth_unsubscribe" -> response.put("result", subscriptions.remove(params.path(0).asText()) != null);
+            default -> {
+                return error(response, "Method not supported by the stub: " + request.path("method").asText());
+            }
+        }
+        return response;
+    }
+
+    private static long blockNumber(String parameter, long head) {
+        return switch (parameter) {
+            case "latest", "pending", "safe", "finalized" -> head;
+            case "earliest" -> 0;
+            default -> Numeric.decodeQuantity(parameter).longValue();
+        };
+    }
+
+    private static ObjectNode error(ObjectNode response, String message) {
+        ObjectNode error = response.putObject("error");
+        error.put("code", -32601);
+        error.put("message", message);
+        return response;
+    }
+}
@@ -0,0 +1,100 @@
+package com.blockvote.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Compact columnar encoding of the vote audit export. Rows are buffered in blocks of BLOCK_ROWS
+ * and written column by column, so heap use does not depend on the number of votes.
+ *
+ * All integers are big-endian. Strings are an int byte length (-1 for null) followed by UTF-8.
+ * <pre>
+ * header: int magic "BVVX", short version, long electionId,
+ *         int candidateCount, candidateCount x (long id, string name)
+ * block:  int rowCount, then for each column in COLUMNS: int byteLength, column data
+ *         id, candidateId, votedAt (epoch millis) and blockNumber (-1 for null) are longs,
+ *         walletAddress and transactionHash are strings
+ * end:    int 0
+ * </pre>
+ */
+public class ColumnarVoteWriter implements AutoCloseable {
+
+    public static final int MAGIC = 0x42565658; // "BVVX"
+    public static final short VERSION = 1;
+    public static final int BLOCK_ROWS = 4096;
+    public static final String[] COLUMNS = {
+            "id", "candidateId", "votedAt", "walletAddress", "transactionHash", "blockNumber"
+    };
+
+    private final DataOutputStream out;
+    private final ByteArrayOutputStream[] buffers = new ByteArrayOutputStream[COLUMNS.length];
+    private final DataOutputStream[] columns = new DataOutputStream[COLUMNS.length];
+    private int rows;
+
+    public ColumnarVoteWriter(OutputStream out, long electionId, Map<Long, String> candidates) throws IOException {
+        this.out = new DataOutputStream(out);
+        for (int i = 0; i < COLUMNS.length; i++) {
+            buffers[i] = new ByteArrayOutputStream(BLOCK_ROWS * 8);
+            columns[i] = new DataOutputStream(buffers[i]);
+        }
+
+        this.out.writeInt(MAGIC);
+        this.out.writeShort(VERSION);
+        this.out.writeLong(electionId);
+        this.out.writeInt(candidates.size());
+        for (Map.Entry<Long, String> candidate : candidates.entrySet()) {
+            this.out.writeLong(candidate.getKey());
+            writeString(this.out, candidate.getValue());
+        }
+    }
+
+    public void write(long id, long candidateId, long votedAtMillis, String walletAddress,
+            String transactionHash, Long blockNumber) throws IOException {
+        columns[0].writeLong(id);
+        columns[1].writeLong(candidateId);
+        columns[2].writeLong(votedAtMillis);
+        writeString(columns[3], walletAddress);
+        writeString(columns[4], transactionHash);
+        columns[5].writeLong(blockNumber == null ? -1 : blockNumber);
+        if (++rows == BLOCK_ROWS) {
+            flushBlock();
+        }
+    }
+
+    /**
+     * Write the last partial block and the end marker; the underlying stream is left open
+     */
+    @Override
+    public void close() throws IOException {
+        flushBlock();
+        out.writeInt(0);
+        out.flush();
+    }
+
+    private void flushBlock() throws IOException {
+        if (rows == 0) {
+            return;
+        }
+        out.writeInt(rows);
+        for (ByteArrayOutputStream buffer : buffers) {
+            out.writeInt(buffer.size());
+            buffer.writeTo(out);
+            buffer.reset();
+        }
+        rows = 0;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
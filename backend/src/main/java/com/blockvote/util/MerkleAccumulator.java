@@ -0,0 +1,203 @@
+package com.blockvote.util;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Append-only Merkle tree with the RFC 6962 (Certificate Transparency) shape and hashing:
+ * leaf = SHA-256(0x00 || data), node = SHA-256(0x01 || left || right), and a tree of n leaves
+ * splits into a perfect left subtree of the largest power of two below n and the rest.
+ *
+ * Every complete subtree is kept, level by level, in flat byte arrays of 32-byte hashes, so an
+ * append hashes one node amortized, the root is a fold over at most log2(n) subtree roots and
+ * an inclusion proof is log2(n) stored or cheaply combined hashes. Appending reuses one digest
+ * and writes straight into the level arrays, so it does not allocate apart from array growth.
+ * About 64 bytes of memory per leaf. Not thread-safe; callers synchronize.
+ */
+public class MerkleAccumulator {
+
+    public static final int HASH_SIZE = 32;
+
+    private static final byte LEAF_PREFIX = 0x00;
+    private static final byte NODE_PREFIX = 0x01;
+
+    private final MessageDigest digest = newDigest();
+    // levels[k] holds the roots of the complete subtrees of 2^k leaves, left to right
+    private byte[][] levels = new byte[1][];
+    private long[] levelCounts = new long[1];
+    private long size;
+
+    public MerkleAccumulator() {
+        levels[0] = new byte[1024 * HASH_SIZE];
+    }
+
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Append a leaf given its data (hashed with the leaf prefix)
+     */
+    public void appendData(byte[] data, int offset, int length) {
+        digest.update(LEAF_PREFIX);
+        digest.update(data, offset, length);
+        int slot = reserve(0);
+        finish(levels[0], slot);
+        levelCounts[0]++;
+        size++;
+        propagate();
+    }
+
+    /**
+     * Append an already computed leaf hash
+     */
+    public void appendLeafHash(byte[] leafHash) {
+        int slot = reserve(0);
+        System.arraycopy(leafHash, 0, levels[0], slot, HASH_SIZE);
+        levelCounts[0]++;
+        size++;
+        propagate();
+    }
+
+    public byte[] leafHash(long index) {
+        checkIndex(index, size);
+        return Arrays.copyOfRange(levels[0], (int) (index * HASH_SIZE), (int) (index + 1) * HASH_SIZE);
+    }
+
+    /**
+     * Root of the current tree; the hash of empty input for an empty tree
+     */
+    public byte[] root() {
+        return size == 0 ? digest.digest() : subtree(0, size);
+    }
+
+    /**
+     * Audit path of a leaf in the current tree, bottom-up (RFC 6962 section 2.1.1)
+     */
+    public List<byte[]> proof(long index) {
+        checkIndex(index, size);
+        List<byte[]> path = new ArrayList<>();
+        path(index, 0, size, path);
+        return path;
+    }
+
+    /**
+     * Check an audit path against a root
+     */
+    public static boolean verify(byte[] leafHash, long index, long treeSize, List<byte[]> proof, byte[] root) {
+        if (index < 0 || index >= treeSize) {
+            return false;
+        }
+        MessageDigest digest = newDigest();
+        long fn = index;
+        long sn = treeSize - 1;
+        byte[] hash = leafHash.clone();
+        for (byte[] sibling : proof) {
+            if (sn == 0) {
+                return false;
+            }
+            if ((fn & 1) == 1 || fn == sn) {
+                hash = node(digest, sibling, hash);
+                while ((fn & 1) == 0 && fn != 0) {
+                    fn >>= 1;
+                    sn >>= 1;
+                }
+            } else {
+                hash = node(digest, hash, sibling);
+            }
+            fn >>= 1;
+            sn >>= 1;
+        }
+        return sn == 0 && Arrays.equals(hash, root);
+    }
+
+    // After a leaf append, combine complete pairs upwards
+    private void propagate() {
+        int level = 0;
+        while ((levelCounts[level] & 1) == 0) {
+            long right = levelCounts[level] - 1;
+            byte[] hashes = levels[level];
+            digest.update(NODE_PREFIX);
+            digest.update(hashes, (int) ((right - 1) * HASH_SIZE), 2 * HASH_SIZE);
+            int slot = reserve(level + 1);
+            finish(levels[level + 1], slot);
+            levelCounts[level + 1]++;
+            level++;
+        }
+    }
+
+    // Byte offset of the next hash at the level, growing the level array when it is full
+    private int reserve(int level) {
+        if (level == levels.length) {
+            levels = Arrays.copyOf(levels, level + 1);
+            levelCounts = Arrays.copyOf(levelCounts, level + 1);
+            levels[level] = new byte[Math.max(16, levels[level - 1].length / 2)];
+        }
+        long offset = levelCounts[level] * HASH_SIZE;
+        if (offset + HASH_SIZE > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Merkle tree is full");
+        }
+        if (offset + HASH_SIZE > levels[level].length) {
+            levels[level] = Arrays.copyOf(levels[level],
+                    (int) Math.min(Integer.MAX_VALUE - 8L, (long) levels[level].length * 2));
+        }
+        return (int) offset;
+    }
+
+    private void finish(byte[] target, int offset) {
+        try {
+            digest.digest(target, offset, HASH_SIZE);
+        } catch (Exception e) {
+            throw new IllegalStateException("SHA-256 failed", e);
+        }
+    }
+
+    // Hash of the leaves [start, start + count)
+    private byte[] subtree(long start, long count) {
+        if (Long.bitCount(count) == 1) {
+            int level = Long.numberOfTrailingZeros(count);
+            int offset = (int) ((start >> level) * HASH_SIZE);
+            return Arrays.copyOfRange(levels[level], offset, offset + HASH_SIZE);
+        }
+        long split = Long.highestOneBit(count);
+        return node(digest, subtree(start, split), subtree(start + split, count - split));
+    }
+
+    private void path(long index, long start, long count, List<byte[]> path) {
+        if (count == 1) {
+            return;
+        }
+        long split = Long.highestOneBit(count - 1);
+        if (index < start + split) {
+            path(index, start, split, path);
+            path.add(subtree(start + split, count - split));
+        } else {
+            path(index, start + split, count - split, path);
+            path.add(subtree(start, split));
+        }
+    }
+
+    private static byte[] node(MessageDigest digest, byte[] left, byte[] right) {
+        digest.update(NODE_PREFIX);
+        digest.update(left);
+        digest.update(right);
+        return digest.digest();
+    }
+
+    private static void checkIndex(long index, long size) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Leaf " + index + " outside tree of size " + size);
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
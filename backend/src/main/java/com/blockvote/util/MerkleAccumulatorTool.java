@@ -0,0 +1,122 @@
+package com.blockvote.util;
+
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Offline tool for the vote Merkle accumulator, runs without the application:
+ *
+ * <pre>
+ *   check &lt;maxSize&gt;   compare roots and proofs with a direct RFC 6962 computation for every size up to maxSize
+ *   bench &lt;leaves&gt;    measure appends per second, root and proof times
+ * </pre>
+ */
+public class MerkleAccumulatorTool {
+
+    // Same shape as a vote leaf: four longs and a 42 character wallet address
+    private static final int LEAF_SIZE = 4 * 8 + 42;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length >= 2 && args[0].equals("check")) {
+            check(Integer.parseInt(args[1]));
+        } else if (args.length >= 2 && args[0].equals("bench")) {
+            bench(Integer.parseInt(args[1]));
+        } else {
+            System.err.println("Usage: MerkleAccumulatorTool check <maxSize>");
+            System.err.println("       MerkleAccumulatorTool bench <leaves>");
+            System.exit(2);
+        }
+    }
+
+    private static void check(int maxSize) throws Exception {
+        MerkleAccumulator tree = new MerkleAccumulator();
+        byte[][] leaves = new byte[maxSize][];
+        for (int n = 1; n <= maxSize; n++) {
+            byte[] data = leafData(n - 1);
+            tree.appendData(data, 0, data.length);
+            leaves[n - 1] = hash((byte) 0, data);
+
+            byte[] expected = reference(leaves, 0, n);
+            if (!Arrays.equals(expected, tree.root())) {
+                System.out.println("Root mismatch at size " + n);
+                System.exit(1);
+            }
+            for (int i = 0; i < n; i++) {
+                if (!MerkleAccumulator.verify(tree.leafHash(i), i, n, tree.proof(i), expected)) {
+                    System.out.println("Proof of leaf " + i + " fails at size " + n);
+                    System.exit(1);
+                }
+            }
+        }
+        System.out.println("Roots and proofs OK for sizes 1.." + maxSize);
+    }
+
+    private static void bench(int leaves) {
+        byte[] data = leafData(0);
+        MerkleAccumulator tree = new MerkleAccumulator();
+
+        // Warm up the digest and the append path
+        for (int i = 0; i < 200_000; i++) {
+            tree.appendData(data, 0, data.length);
+        }
+
+        tree = new MerkleAccumulator();
+        long started = System.nanoTime();
+        for (int i = 0; i < leaves; i++) {
+            data[7] = (byte) i;
+            tree.appendData(data, 0, data.length);
+        }
+        long appendNanos = System.nanoTime() - started;
+
+        started = System.nanoTime();
+        byte[] root = tree.root();
+        long rootNanos = System.nanoTime() - started;
+
+        int proofs = 10_000;
+        started = System.nanoTime();
+        for (int i = 0; i < proofs; i++) {
+            long index = (long) i * 7919 % leaves;
+            List<byte[]> proof = tree.proof(index);
+            if (!MerkleAccumulator.verify(tree.leafHash(index), index, leaves, proof, root)) {
+                throw new IllegalStateException("Proof of leaf " + index + " does not verify");
+            }
+        }
+        long proofNanos = System.nanoTime() - started;
+
+        System.out.printf("%d appends: %.0f appends/s, %.0f ns/append%n", leaves,
+                leaves / (appendNanos / 1e9), (double) appendNanos / leaves);
+        System.out.printf("root: %.1f us, proof + verify: %.1f us%n", rootNanos / 1e3,
+                proofNanos / 1e3 / proofs);
+    }
+
+    private static byte[] leafData(long seed) {
+        byte[] data = new byte[LEAF_SIZE];
+        for (int i = 0; i < 8; i++) {
+            data[i] = (byte) (seed >>> (56 - i * 8));
+        }
+        byte[] wallet = "0x5aaeb6053f3e94c9b9a09f33669435e7ef1beaed".getBytes();
+        System.arraycopy(wallet, 0, data, 32, wallet.length);
+        return data;
+    }
+
+    // MTH from RFC 6962 section 2.1, computed directly from the leaf hashes
+    private static byte[] reference(byte[][] leaves, int start, int count) throws Exception {
+        if (count == 1) {
+            return leaves[start];
+        }
+        int split = Integer.highestOneBit(count - 1);
+        byte[] left = reference(leaves, start, split);
+        byte[] right = reference(leaves, start + split, count - split);
+        byte[] both = new byte[64];
+        System.arraycopy(left, 0, both, 0, 32);
+        System.arraycopy(right, 0, both, 32, 32);
+        return hash((byte) 1, both);
+    }
+
+    private static byte[] hash(byte prefix, byte[] data) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        digest.update(prefix);
+        return digest.digest(data);
+    }
+}
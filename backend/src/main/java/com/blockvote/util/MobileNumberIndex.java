@@ -0,0 +1,162 @@
+package com.blockvote.util;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Primitive open-addressing hash index from a 10-digit mobile number to a user id
+ * plus flag bits. Every entry is packed into a single long:
+ *
+ * <pre>
+ *  bits 63..30  mobile number + 1 (34 bits, 0 marks an empty slot)
+ *  bits 29..3   user id (27 bits)
+ *  bits  2..0   flags (WALLET_VERIFIED, ADMIN; bit 0 is unused)
+ * </pre>
+ *
+ * That is 8 bytes per slot, so roughly 13 bytes per voter at 10M voters and a 0.6 load factor.
+ * Reads are lock-free optimistic reads; writes are serialized.
+ */
+public class MobileNumberIndex {
+
+    public static final int WALLET_VERIFIED = 2;
+    public static final int ADMIN = 4;
+
+    /**
+     * Returned by get() when the mobile number is not in the index
+     */
+    public static final long NOT_FOUND = -1L;
+
+    public static final long MAX_MOBILE = 9_999_999_999L;
+    public static final long MAX_USER_ID = (1L << 27) - 1;
+
+    private static final int KEY_SHIFT = 30;
+    private static final int ID_SHIFT = 3;
+    private static final long FLAG_MASK = (1L << ID_SHIFT) - 1;
+    private static final long VALUE_MASK = (1L << KEY_SHIFT) - 1;
+    private static final double MAX_LOAD = 0.75;
+
+    private final StampedLock lock = new StampedLock();
+    private long[] slots;
+    private int size;
+
+    public MobileNumberIndex(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / MAX_LOAD)) - 1) << 1;
+        slots = new long[capacity];
+    }
+
+    /**
+     * Packed value for the mobile number: (userId << 3) | flags, or NOT_FOUND
+     */
+    public long get(long mobile) {
+        long stamp = lock.tryOptimisticRead();
+        long value = find(slots, mobile);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                value = find(slots, mobile);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return value;
+    }
+
+    public static long userId(long value) {
+        return value >>> ID_SHIFT;
+    }
+
+    public static boolean hasFlag(long value, int flag) {
+        return (value & flag) != 0;
+    }
+
+    /**
+     * Insert or replace an entry
+     */
+    public void put(long mobile, long userId, int flags) {
+        if (mobile < 0 || mobile > MAX_MOBILE || userId < 0 || userId > MAX_USER_ID) {
+            throw new IllegalArgumentException("Entry does not fit the index: " + mobile + " / " + userId);
+        }
+
+        long stamp = lock.writeLock();
+        try {
+            if (size + 1 > slots.length * MAX_LOAD) {
+                resize();
+            }
+            int slot = slotOf(slots, mobile);
+            if (slots[slot] == 0) {
+                size++;
+            }
+            slots[slot] = pack(mobile, (userId << ID_SHIFT) | (flags & FLAG_MASK));
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Set and clear flag bits of an existing entry
+     *
+     * @return false if the mobile number is not in the index
+     */
+    public boolean updateFlags(long mobile, int set, int clear) {
+        if (mobile < 0 || mobile > MAX_MOBILE) {
+            return false;
+        }
+        long stamp = lock.writeLock();
+        try {
+            int slot = slotOf(slots, mobile);
+            if (slots[slot] == 0) {
+                return false;
+            }
+            slots[slot] = (slots[slot] | set) & ~(long) clear;
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public long memoryBytes() {
+        return (long) slots.length * Long.BYTES;
+    }
+
+    private static long find(long[] table, long mobile) {
+        if (mobile < 0 || mobile > MAX_MOBILE) {
+            return NOT_FOUND;
+        }
+        long entry = table[slotOf(table, mobile)];
+        return entry == 0 ? NOT_FOUND : entry & VALUE_MASK;
+    }
+
+    // Linear probing: slot holding the key, or the empty slot where it would go
+    private static int slotOf(long[] table, long mobile) {
+        long key = mobile + 1;
+        int mask = table.length - 1;
+        int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+        while (table[slot] != 0 && (table[slot] >>> KEY_SHIFT) != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static long pack(long mobile, long value) {
+        return ((mobile + 1) << KEY_SHIFT) | value;
+    }
+
+    private void resize() {
+        long[] old = slots;
+        long[] table = new long[old.length << 1];
+        for (long entry : old) {
+            if (entry != 0) {
+                table[slotOf(table, (entry >>> KEY_SHIFT) - 1)] = entry;
+            }
+        }
+        slots = table;
+    }
+}
@@ -0,0 +1,122 @@
+package com.blockvote.util;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Benchmark of voter lookups through the in-memory MobileNumberIndex against the database
+ * query behind UserRepository.findByMobileNumber, run against the application's PostgreSQL
+ * database without the application:
+ *
+ * <pre>
+ *   MobileNumberIndexTool &lt;jdbcUrl&gt; &lt;user&gt; &lt;password&gt; &lt;lookupsPerThread&gt; [threads]
+ * </pre>
+ *
+ * The users table is loaded into the index as VoterRegistryService does on startup, then both
+ * paths look up random registered mobile numbers.
+ */
+public class MobileNumberIndexTool {
+
+    private static final String FIND_BY_MOBILE_SQL = "SELECT id, mobile_number, role, wallet_address, " +
+            "registered_wallet_address, wallet_verified FROM users WHERE mobile_number = ?";
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 4) {
+            System.err.println("Usage: MobileNumberIndexTool <jdbcUrl> <user> <password> <lookupsPerThread> [threads]");
+            System.exit(2);
+        }
+        String url = args[0];
+        String user = args[1];
+        String password = args[2];
+        int lookups = Integer.parseInt(args[3]);
+        int threads = args.length > 4 ? Integer.parseInt(args[4]) : 1;
+
+        List<String> mobiles = new ArrayList<>();
+        MobileNumberIndex index = new MobileNumberIndex(1024);
+        long loadStarted = System.nanoTime();
+        try (Connection connection = DriverManager.getConnection(url, user, password);
+                Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery("SELECT id, mobile_number, role, wallet_verified FROM users")) {
+            while (rs.next()) {
+                String mobile = rs.getString("mobile_number");
+                long number;
+                try {
+                    number = Long.parseLong(mobile);
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+                int flags = (rs.getBoolean("wallet_verified") ? MobileNumberIndex.WALLET_VERIFIED : 0)
+                        | ("ADMIN".equals(rs.getString("role")) ? MobileNumberIndex.ADMIN : 0);
+                index.put(number, rs.getLong("id"), flags);
+                mobiles.add(mobile);
+            }
+        }
+        if (mobiles.isEmpty()) {
+            System.err.println("No users with numeric mobile numbers to look up");
+            System.exit(1);
+        }
+        System.out.printf("Loaded %d users in %d ms, index %d KB%n", index.size(),
+                (System.nanoTime() - loadStarted) / 1_000_000, index.memoryBytes() / 1024);
+
+        run("index", threads, lookups, () -> {
+            long found = 0;
+            for (int i = 0; i < lookups; i++) {
+                String mobile = mobiles.get(ThreadLocalRandom.current().nextInt(mobiles.size()));
+                if (index.get(Long.parseLong(mobile)) != MobileNumberIndex.NOT_FOUND) {
+                    found++;
+                }
+            }
+            return found;
+        });
+        run("database", threads, lookups, () -> {
+            long found = 0;
+            try (Connection connection = DriverManager.getConnection(url, user, password);
+                    PreparedStatement ps = connection.prepareStatement(FIND_BY_MOBILE_SQL)) {
+                for (int i = 0; i < lookups; i++) {
+                    ps.setString(1, mobiles.get(ThreadLocalRandom.current().nextInt(mobiles.size())));
+                    try (ResultSet rs = ps.executeQuery()) {
+                        if (rs.next()) {
+                            found++;
+                        }
+                    }
+                }
+            }
+            return found;
+        });
+    }
+
+    private interface Lookups {
+        long run() throws SQLException;
+    }
+
+    private static void run(String name, int threads, int lookups, Lookups worker) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long found = 0;
+        long started = System.nanoTime();
+        try {
+            List<Future<Long>> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                workers.add(executor.submit(worker::run));
+            }
+            for (Future<Long> result : workers) {
+                found += result.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        long nanos = System.nanoTime() - started;
+        long total = (long) threads * lookups;
+        System.out.printf("%-8s %d threads: %.0f lookups/s, %.2f us per lookup (found %d of %d)%n",
+                name, threads, total * 1e9 / nanos, nanos / 1e3 * threads / total, found, total);
+    }
+}
@@ -0,0 +1,114 @@
+package com.blockvote.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Votes per time bucket and candidate, kept in fixed-size primitive ring buffers at three
+ * resolutions (last hour by second, last day by minute, last 31 days by hour).
+ *
+ * Each resolution holds a long[buckets * candidates] of counts plus the time slot every bucket
+ * currently represents; a bucket whose slot is outdated is cleared when it is reused.
+ */
+public class TurnoutTimeline {
+
+    public enum Resolution {
+        SECOND(1000L, 3600),
+        MINUTE(60_000L, 1440),
+        HOUR(3_600_000L, 744);
+
+        private final long bucketMillis;
+        private final int buckets;
+
+        Resolution(long bucketMillis, int buckets) {
+            this.bucketMillis = bucketMillis;
+            this.buckets = buckets;
+        }
+
+        public long getBucketMillis() {
+            return bucketMillis;
+        }
+    }
+
+    /**
+     * One non-empty bucket: start time, total votes and votes per candidate (same order as candidateIds)
+     */
+    public record Bucket(long startMillis, long total, long[] votes) {
+    }
+
+    private final long[] candidateIds;
+    private final long[][] counts = new long[Resolution.values().length][];
+    private final long[][] slots = new long[Resolution.values().length][];
+
+    public TurnoutTimeline(long[] candidateIds) {
+        this.candidateIds = candidateIds.clone();
+        for (Resolution resolution : Resolution.values()) {
+            counts[resolution.ordinal()] = new long[resolution.buckets * candidateIds.length];
+            slots[resolution.ordinal()] = new long[resolution.buckets];
+            Arrays.fill(slots[resolution.ordinal()], -1);
+        }
+    }
+
+    public long[] getCandidateIds() {
+        return candidateIds.clone();
+    }
+
+    /**
+     * Position of a candidate, or -1 if the timeline does not track it
+     */
+    public int positionOf(long candidateId) {
+        for (int i = 0; i < candidateIds.length; i++) {
+            if (candidateIds[i] == candidateId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public synchronized void record(int position, long timeMillis, long votes) {
+        for (Resolution resolution : Resolution.values()) {
+            long slot = timeMillis / resolution.bucketMillis;
+            int bucket = (int) (slot % resolution.buckets);
+            long[] bucketSlots = slots[resolution.ordinal()];
+            long[] bucketCounts = counts[resolution.ordinal()];
+
+            if (bucketSlots[bucket] != slot) {
+                if (bucketSlots[bucket] > slot || votes < 0) {
+                    continue; // older than the retained window, or a removal from an expired bucket
+                }
+                bucketSlots[bucket] = slot;
+                Arrays.fill(bucketCounts, bucket * candidateIds.length,
+                        (bucket + 1) * candidateIds.length, 0L);
+            }
+            bucketCounts[bucket * candidateIds.length + position] += votes;
+        }
+    }
+
+    /**
+     * Non-empty buckets of the retained window ending at nowMillis, oldest first
+     */
+    public synchronized List<Bucket> buckets(Resolution resolution, long nowMillis) {
+        long[] bucketSlots = slots[resolution.ordinal()];
+        long[] bucketCounts = counts[resolution.ordinal()];
+        long newest = nowMillis / resolution.bucketMillis;
+
+        List<Bucket> result = new ArrayList<>();
+        for (long slot = newest - resolution.buckets + 1; slot <= newest; slot++) {
+            int bucket = (int) (slot % resolution.buckets);
+            if (slot < 0 || bucketSlots[bucket] != slot) {
+                continue;
+            }
+            long[] votes = new long[candidateIds.length];
+            System.arraycopy(bucketCounts, bucket * candidateIds.length, votes, 0, candidateIds.length);
+            long total = 0;
+            for (long v : votes) {
+                total += v;
+            }
+            if (total > 0) {
+                result.add(new Bucket(slot * resolution.bucketMillis, total, votes));
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,106 @@
+package com.blockvote.util;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Benchmark of the sharded vote counter against a single counter row, run against a
+ * PostgreSQL database without the application:
+ *
+ * <pre>
+ *   VoteCounterTool &lt;jdbcUrl&gt; &lt;user&gt; &lt;password&gt; &lt;threads&gt; &lt;updatesPerThread&gt; [shards]
+ * </pre>
+ *
+ * Every thread commits one increment per transaction, as a vote does. The single-row run uses
+ * one slot, so all threads serialize on its row lock; the sharded run spreads the increments
+ * over shards random slots (default 16), like VoteCounterService. Uses its own scratch table.
+ */
+public class VoteCounterTool {
+
+    private static final String TABLE = "vote_counter_bench";
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 5) {
+            System.err.println("Usage: VoteCounterTool <jdbcUrl> <user> <password> <threads> <updatesPerThread> [shards]");
+            System.exit(2);
+        }
+        String url = args[0];
+        String user = args[1];
+        String password = args[2];
+        int threads = Integer.parseInt(args[3]);
+        int updates = Integer.parseInt(args[4]);
+        int shards = args.length > 5 ? Integer.parseInt(args[5]) : 16;
+
+        try (Connection connection = DriverManager.getConnection(url, user, password);
+                Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + TABLE);
+            statement.execute("CREATE TABLE " + TABLE + " (slot INT PRIMARY KEY, vote_count BIGINT NOT NULL)");
+            try {
+                run("single row", url, user, password, threads, updates, 1);
+                run("sharded x" + shards, url, user, password, threads, updates, shards);
+            } finally {
+                statement.execute("DROP TABLE " + TABLE);
+            }
+        }
+    }
+
+    private static void run(String name, String url, String user, String password, int threads, int updates,
+            int slots) throws Exception {
+        try (Connection connection = DriverManager.getConnection(url, user, password);
+                Statement statement = connection.createStatement()) {
+            statement.execute("TRUNCATE " + TABLE);
+            statement.execute("INSERT INTO " + TABLE + " SELECT slot, 0 FROM generate_series(0, " + (slots - 1)
+                    + ") AS slot");
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long started = System.nanoTime();
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                workers.add(executor.submit(() -> {
+                    increment(url, user, password, updates, slots);
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        long total;
+        try (Connection connection = DriverManager.getConnection(url, user, password);
+                Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery("SELECT SUM(vote_count) FROM " + TABLE)) {
+            rs.next();
+            total = rs.getLong(1);
+        }
+        System.out.printf("%-12s %d threads: %.0f updates/s (counted %d of %d)%n",
+                name, threads, (long) threads * updates / seconds, total, (long) threads * updates);
+    }
+
+    private static void increment(String url, String user, String password, int updates, int slots)
+            throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url, user, password);
+                PreparedStatement ps = connection.prepareStatement(
+                        "UPDATE " + TABLE + " SET vote_count = vote_count + 1 WHERE slot = ?")) {
+            for (int i = 0; i < updates; i++) {
+                ps.setInt(1, ThreadLocalRandom.current().nextInt(slots));
+                ps.executeUpdate();
+            }
+        }
+    }
+}
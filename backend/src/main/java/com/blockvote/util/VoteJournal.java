@@ -0,0 +1,411 @@
+package com.blockvote.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Append-only, hash-chained vote journal stored in memory-mapped segment files.
+ *
+ * <pre>
+ * Segment file votes-NNNNNN.journal:
+ *   header (64 bytes): magic, version, segment index, first sequence, previous segment's last hash
+ *   records (160 bytes each):
+ *     0  sequence (starts at 1, 0 marks unused space)
+ *     8  type (VOTE, REVOKE, ACCEPT or RESOLVE)
+ *     12 voting round + 1 (VOTE; 0 when not recorded, as in records written before rounds were)
+ *     16 vote id (REVOKE, RESOLVE: sequence of the revoked or resolved record; ACCEPT: voting round)
+ *     24 election id
+ *     32 candidate id
+ *     40 voted at (epoch millis)
+ *     48 voter mobile (16 bytes ASCII)
+ *     64 wallet address (64 bytes ASCII)
+ *     128 SHA-256(previous record hash || bytes 0..127)
+ * </pre>
+ *
+ * Appends are serialized; each segment links to the previous one through its header,
+ * so segments can be verified in parallel. Flushes run outside the append lock and are
+ * shared: a caller waiting to flush its record finds it already on disk when a concurrent
+ * flush covered it.
+ */
+public class VoteJournal implements Closeable {
+
+    public static final int TYPE_VOTE = 1;
+    public static final int TYPE_REVOKE = 2;
+    public static final int TYPE_ACCEPT = 3;
+    public static final int TYPE_RESOLVE = 4;
+
+    public static final int NO_ROUND = -1;
+
+    public static final int RECORD_SIZE = 160;
+    private static final int BODY_SIZE = 128;
+    private static final int HASH_SIZE = 32;
+    private static final int HEADER_SIZE = 64;
+    private static final int MAGIC = 0x42564A31; // "BVJ1"
+    private static final int VERSION = 1;
+    private static final byte[] GENESIS_HASH = new byte[HASH_SIZE];
+
+    private final Path directory;
+    private final int recordsPerSegment;
+
+    private final MessageDigest digest = sha256();
+    private final byte[] body = new byte[BODY_SIZE];
+    private final ByteBuffer bodyView = ByteBuffer.wrap(body);
+    private final byte[] lastHash = new byte[HASH_SIZE];
+
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private long segmentIndex;
+    private int segmentCapacity;
+    private int segmentPosition; // next free record slot in the current segment
+    private long nextSequence;
+
+    private final Object forceLock = new Object();
+    private volatile long forcedSequence; // every record up to this one is on the storage device
+
+    /**
+     * One decoded journal record
+     */
+    public record JournalRecord(long sequence, int type, int round, long voteId, long electionId,
+            long candidateId, long votedAt, String voterMobile, String walletAddress) {
+    }
+
+    /**
+     * Verification outcome of a single segment
+     */
+    public record SegmentCheck(long segmentIndex, byte[] headerPrevHash, byte[] lastHash, long records,
+            String error) {
+    }
+
+    public VoteJournal(Path directory, int recordsPerSegment) throws IOException {
+        this.directory = directory;
+        this.recordsPerSegment = recordsPerSegment;
+        Files.createDirectories(directory);
+        open();
+    }
+
+    /**
+     * Append one record and return its sequence number; round is NO_ROUND for records without one
+     */
+    public synchronized long append(int type, int round, long voteId, long electionId, long candidateId,
+            long votedAt, String voterMobile, String walletAddress) {
+        if (segmentPosition == segmentCapacity) {
+            rollover();
+        }
+
+        long sequence = nextSequence;
+        Arrays.fill(body, (byte) 0);
+        bodyView.putLong(0, sequence);
+        bodyView.putInt(8, type);
+        bodyView.putInt(12, round + 1);
+        bodyView.putLong(16, voteId);
+        bodyView.putLong(24, electionId);
+        bodyView.putLong(32, candidateId);
+        bodyView.putLong(40, votedAt);
+        putAscii(48, 16, voterMobile);
+        putAscii(64, 64, walletAddress);
+
+        digest.update(lastHash);
+        digest.update(body);
+        try {
+            digest.digest(lastHash, 0, HASH_SIZE);
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to hash journal record", e);
+        }
+
+        int offset = HEADER_SIZE + segmentPosition * RECORD_SIZE;
+        // Hash before body: a record only counts once its sequence is non-zero,
+        // and a torn write fails its hash check when the journal is reopened
+        segment.put(offset + BODY_SIZE, lastHash);
+        segment.put(offset, body);
+
+        segmentPosition++;
+        nextSequence++;
+        return sequence;
+    }
+
+    /**
+     * Flush appended records to the storage device
+     */
+    public void force() {
+        forceThrough(lastSequence());
+    }
+
+    /**
+     * Make sure every record up to the sequence is on the storage device. One caller flushes
+     * everything appended so far while the others wait for it, and return without flushing
+     * again when their records were included.
+     */
+    public void forceThrough(long sequence) {
+        if (forcedSequence >= sequence) {
+            return;
+        }
+        synchronized (forceLock) {
+            if (forcedSequence >= sequence) {
+                return;
+            }
+            long through;
+            MappedByteBuffer current;
+            synchronized (this) {
+                through = nextSequence - 1;
+                current = segment;
+            }
+            // Earlier segments were flushed when they were rolled over
+            current.force();
+            forcedSequence = through;
+        }
+    }
+
+    public synchronized long lastSequence() {
+        return nextSequence - 1;
+    }
+
+    /**
+     * Read every record in order
+     */
+    public void forEach(Consumer<JournalRecord> consumer) throws IOException {
+        for (Path file : segmentFiles()) {
+            try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+                for (int i = 0; i < recordsInFile(buffer); i++) {
+                    int offset = HEADER_SIZE + i * RECORD_SIZE;
+                    if (buffer.getLong(offset) == 0) {
+                        break;
+                    }
+                    consumer.accept(decode(buffer, offset));
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (segment != null) {
+            segment.force();
+        }
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    // ----- Verification -----
+
+    /**
+     * Verify the hash chain of every segment in the directory, segments in parallel.
+     *
+     * @return list of problems found, empty when the journal is intact
+     */
+    public static List<String> verify(Path directory) throws IOException {
+        List<Path> files = listSegments(directory);
+        List<SegmentCheck> checks = files.parallelStream()
+                .map(VoteJournal::verifySegment)
+                .toList();
+
+        List<String> problems = new ArrayList<>();
+        byte[] expectedPrev = GENESIS_HASH;
+        for (SegmentCheck check : checks) {
+            if (check.error() != null) {
+                problems.add("segment " + check.segmentIndex() + ": " + check.error());
+            }
+            if (!Arrays.equals(expectedPrev, check.headerPrevHash())) {
+                problems.add("segment " + check.segmentIndex() + ": header does not link to the previous segment");
+            }
+            expectedPrev = check.lastHash();
+        }
+        return problems;
+    }
+
+    public static SegmentCheck verifySegment(Path file) {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+            long index = buffer.getLong(8);
+            if (buffer.getInt(0) != MAGIC) {
+                return new SegmentCheck(index, GENESIS_HASH, GENESIS_HASH, 0, "bad magic");
+            }
+
+            byte[] prev = new byte[HASH_SIZE];
+            buffer.get(24, prev);
+            byte[] headerPrev = prev.clone();
+
+            MessageDigest sha = sha256();
+            byte[] recordBody = new byte[BODY_SIZE];
+            byte[] stored = new byte[HASH_SIZE];
+            long expectedSequence = buffer.getLong(16);
+            long records = 0;
+            for (int i = 0; i < recordsInFile(buffer); i++) {
+                int offset = HEADER_SIZE + i * RECORD_SIZE;
+                long sequence = buffer.getLong(offset);
+                if (sequence == 0) {
+                    break;
+                }
+                if (sequence != expectedSequence) {
+                    return new SegmentCheck(index, headerPrev, prev, records,
+                            "expected sequence " + expectedSequence + " but found " + sequence);
+                }
+
+                buffer.get(offset, recordBody);
+                buffer.get(offset + BODY_SIZE, stored);
+                sha.update(prev);
+                sha.update(recordBody);
+                prev = sha.digest();
+                if (!Arrays.equals(prev, stored)) {
+                    return new SegmentCheck(index, headerPrev, prev, records,
+                            "hash mismatch at sequence " + sequence);
+                }
+                expectedSequence++;
+                records++;
+            }
+            return new SegmentCheck(index, headerPrev, prev, records, null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static String toHex(byte[] hash) {
+        return HexFormat.of().formatHex(hash);
+    }
+
+    // ----- Segment management -----
+
+    private void open() throws IOException {
+        List<Path> files = segmentFiles();
+        if (files.isEmpty()) {
+            nextSequence = 1;
+            createSegment(0, GENESIS_HASH);
+            return;
+        }
+
+        Path last = files.get(files.size() - 1);
+        channel = FileChannel.open(last, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        segmentIndex = segment.getLong(8);
+        nextSequence = segment.getLong(16);
+        segment.get(24, lastHash);
+        segmentCapacity = recordsInFile(segment);
+
+        // Find the end of the segment, dropping a torn record left by a crash
+        byte[] stored = new byte[HASH_SIZE];
+        segmentPosition = 0;
+        while (segmentPosition < segmentCapacity) {
+            int offset = HEADER_SIZE + segmentPosition * RECORD_SIZE;
+            if (segment.getLong(offset) == 0) {
+                break;
+            }
+            segment.get(offset, body);
+            segment.get(offset + BODY_SIZE, stored);
+            digest.update(lastHash);
+            digest.update(body);
+            byte[] computed = digest.digest();
+            if (!Arrays.equals(computed, stored)) {
+                segment.put(offset, new byte[RECORD_SIZE]);
+                segment.force();
+                break;
+            }
+            System.arraycopy(computed, 0, lastHash, 0, HASH_SIZE);
+            segmentPosition++;
+            nextSequence++;
+        }
+    }
+
+    private void rollover() {
+        try {
+            segment.force();
+            channel.close();
+            createSegment(segmentIndex + 1, lastHash);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to start a new journal segment", e);
+        }
+    }
+
+    private void createSegment(long index, byte[] prevHash) throws IOException {
+        Path file = directory.resolve(String.format("votes-%06d.journal", index));
+        channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                HEADER_SIZE + (long) recordsPerSegment * RECORD_SIZE);
+        segment.putInt(0, MAGIC);
+        segment.putInt(4, VERSION);
+        segment.putLong(8, index);
+        segment.putLong(16, nextSequence);
+        segment.put(24, prevHash);
+        segment.force();
+
+        segmentIndex = index;
+        segmentCapacity = recordsPerSegment;
+        segmentPosition = 0;
+        System.arraycopy(prevHash, 0, lastHash, 0, HASH_SIZE);
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        return listSegments(directory);
+    }
+
+    private static List<Path> listSegments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(p -> p.getFileName().toString().matches("votes-\\d{6}\\.journal"))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static int recordsInFile(ByteBuffer buffer) {
+        return (buffer.capacity() - HEADER_SIZE) / RECORD_SIZE;
+    }
+
+    private static JournalRecord decode(ByteBuffer buffer, int offset) {
+        return new JournalRecord(
+                buffer.getLong(offset),
+                buffer.getInt(offset + 8),
+                buffer.getInt(offset + 12) - 1,
+                buffer.getLong(offset + 16),
+                buffer.getLong(offset + 24),
+                buffer.getLong(offset + 32),
+                buffer.getLong(offset + 40),
+                getAscii(buffer, offset + 48, 16),
+                getAscii(buffer, offset + 64, 64));
+    }
+
+    private void putAscii(int offset, int length, String value) {
+        if (value == null) {
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(bytes, 0, body, offset, Math.min(bytes.length, length));
+    }
+
+    private static String getAscii(ByteBuffer buffer, int offset, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(offset, bytes);
+        int end = 0;
+        while (end < length && bytes[end] != 0) {
+            end++;
+        }
+        return end == 0 ? null : new String(bytes, 0, end, StandardCharsets.US_ASCII);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
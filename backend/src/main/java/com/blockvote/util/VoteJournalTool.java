@@ -0,0 +1,65 @@
+package com.blockvote.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Offline tool for the vote journal, runs without the application:
+ *
+ * <pre>
+ *   verify &lt;directory&gt;                          check the hash chain, segments in parallel
+ *   bench &lt;directory&gt; &lt;records&gt; &lt;batch&gt; [fsync]  measure appends per second
+ * </pre>
+ */
+public class VoteJournalTool {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length >= 2 && args[0].equals("verify")) {
+            verify(Path.of(args[1]));
+        } else if (args.length >= 4 && args[0].equals("bench")) {
+            bench(Path.of(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[3]),
+                    args.length > 4 && args[4].equals("fsync"));
+        } else {
+            System.err.println("Usage: VoteJournalTool verify <directory>");
+            System.err.println("       VoteJournalTool bench <directory> <records> <batch> [fsync]");
+            System.exit(2);
+        }
+    }
+
+    private static void verify(Path directory) throws IOException {
+        long started = System.nanoTime();
+        List<String> problems = VoteJournal.verify(directory);
+        long millis = (System.nanoTime() - started) / 1_000_000;
+
+        if (problems.isEmpty()) {
+            System.out.println("Journal OK (" + millis + " ms)");
+            return;
+        }
+        problems.forEach(System.out::println);
+        System.exit(1);
+    }
+
+    // Appends into a fresh directory; with fsync the journal is forced once per batch
+    private static void bench(Path directory, int records, int batch, boolean fsync) throws IOException {
+        if (Files.exists(directory)) {
+            throw new IllegalArgumentException("Benchmark directory must not exist: " + directory);
+        }
+
+        try (VoteJournal journal = new VoteJournal(directory, 262144)) {
+            long started = System.nanoTime();
+            for (int i = 1; i <= records; i++) {
+                journal.append(VoteJournal.TYPE_VOTE, 1, i, 1, i % 8, System.currentTimeMillis(),
+                        String.valueOf(7_000_000_000L + i), "0x5aAeb6053F3E94C9b9A09f33669435E7Ef1BeAed");
+                if (fsync && i % batch == 0) {
+                    journal.force();
+                }
+            }
+            journal.force();
+            double seconds = (System.nanoTime() - started) / 1e9;
+            System.out.printf("%d appends, batch %d, fsync %s: %.0f appends/s%n",
+                    records, batch, fsync, records / seconds);
+        }
+    }
+}
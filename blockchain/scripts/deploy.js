@@ -19,6 +19,7 @@ async function main() {
   await voting.waitForDeployment();
   
   const contractAddress = await voting.getAddress();
+  const receipt = await voting.deploymentTransaction().wait();
   
   console.log("✅ Voting contract deployed to:", contractAddress);
   
@@ -26,6 +27,7 @@ async function main() {
   const deploymentInfo = {
     contractAddress: contractAddress,
     deployer: (await hre.ethers.getSigners())[0].address,
+    deploymentBlock: receipt.blockNumber,
     deploymentTime: new Date().toISOString(),
     network: hre.network.name,
     chainId: hre.network.config.chainId
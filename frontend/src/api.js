@@ -32,16 +32,20 @@ export const adminAPI = {
   getCurrentCandidates: () => api.get('/admin/candidates'),
   resetElection: () => api.post('/admin/reset-election'),
   // Archive endpoints
-  getArchivedElections: () => api.get('/admin/archive'),
+  getArchivedElections: (cursor = null) =>
+    api.get('/admin/archive', { params: cursor ? { cursor } : {} }),
   getArchivedElection: (id) => api.get(`/admin/archive/${id}`),
   getElectionStatistics: (id) => api.get(`/admin/archive/${id}/statistics`),
 };
 
 export const voterAPI = {
-  getCandidates: () => api.get('/voter/candidates'),
-  castVote: (mobileNumber, candidateId, walletAddress) =>
-    api.post('/voter/vote', { mobileNumber, candidateId, walletAddress }),
-  hasVoted: (mobileNumber) => api.get(`/voter/has-voted/${mobileNumber}`),
+  getElections: () => api.get('/voter/elections'),
+  // electionId is optional everywhere; the backend falls back to the current election
+  getCandidates: (electionId) => api.get('/voter/candidates', { params: { electionId } }),
+  castVote: (mobileNumber, candidateId, walletAddress, electionId) =>
+    api.post('/voter/vote', { mobileNumber, candidateId, walletAddress, electionId }),
+  hasVoted: (mobileNumber, electionId) =>
+    api.get(`/voter/has-voted/${mobileNumber}`, { params: { electionId } }),
 };
 
 export default api;
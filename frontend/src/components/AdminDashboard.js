@@ -16,6 +16,8 @@ function AdminDashboard() {
   const [activeTab, setActiveTab] = useState('overview');
   const [consoleCollapsed, setConsoleCollapsed] = useState(false);
   const [archivedElections, setArchivedElections] = useState([]);
+  const [archiveCursor, setArchiveCursor] = useState(null);
+  const [loadingMoreArchive, setLoadingMoreArchive] = useState(false);
   const [selectedArchive, setSelectedArchive] = useState(null);
   const [archiveStatistics, setArchiveStatistics] = useState(null);
   const navigate = useNavigate();
@@ -111,6 +113,7 @@ function AdminDashboard() {
       const response = await adminAPI.getArchivedElections();
       if (response.data.success) {
         setArchivedElections(response.data.data);
+        setArchiveCursor(response.data.nextCursor);
       }
     } catch (err) {
       console.error('Failed to load archived elections');
@@ -118,6 +121,24 @@ function AdminDashboard() {
     }
   };
 
+  // Append the next page of the archive, following the cursor of the last one
+  const loadMoreArchivedElections = async () => {
+    if (!archiveCursor) return;
+    try {
+      setLoadingMoreArchive(true);
+      const response = await adminAPI.getArchivedElections(archiveCursor);
+      if (response.data.success) {
+        setArchivedElections(prev => [...prev, ...response.data.data]);
+        setArchiveCursor(response.data.nextCursor);
+      }
+    } catch (err) {
+      console.error('Failed to load more archived elections');
+      setMessage({ type: 'error', text: 'Failed to load more archived elections' });
+    } finally {
+      setLoadingMoreArchive(false);
+    }
+  };
+
   const loadElectionStatistics = async (electionId) => {
     try {
       setLoading(true);
@@ -732,7 +753,7 @@ function AdminDashboard() {
                         </div>
                         <div style={styles.archiveItemMeta}>
                           <span>Total Votes: {election.totalVotes}</span>
-                          <span>Candidates: {election.candidates?.length || 0}</span>
+                          <span>Candidates: {election.candidateCount || 0}</span>
                         </div>
                       </div>
                     ))
@@ -743,6 +764,15 @@ function AdminDashboard() {
                       <p>Complete some elections to see them archived here.</p>
                     </div>
                   )}
+                  {archiveCursor && (
+                    <button
+                      onClick={loadMoreArchivedElections}
+                      disabled={loadingMoreArchive}
+                      style={styles.loadMoreButton}
+                    >
+                      {loadingMoreArchive ? 'Loading...' : 'Load more'}
+                    </button>
+                  )}
                 </div>
 
                 {/* Election Details */}
@@ -1409,6 +1439,17 @@ const styles = {
     transition: 'all 0.2s',
     background: 'white',
   },
+  loadMoreButton: {
+    width: '100%',
+    padding: '10px',
+    fontSize: '14px',
+    fontWeight: '600',
+    background: 'white',
+    color: '#667eea',
+    border: '1px solid #667eea',
+    borderRadius: '8px',
+    cursor: 'pointer',
+  },
   archiveItemActive: {
     background: '#667eea',
     color: 'white',
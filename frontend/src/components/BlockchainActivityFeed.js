@@ -40,6 +40,10 @@ const BlockchainActivityFeed = ({ isAdmin = false }) => {
       // Only show blockchain vote activities
       if (activity.type === 'VOTE_CAST_BLOCKCHAIN') {
         setActivities(prev => [activity, ...prev.slice(0, 9)]); // Keep last 10 activities
+      } else if (activity.type === 'VOTE_CAST_BLOCKCHAIN_BATCH') {
+        // A batch lists its votes oldest first; show the newest on top
+        const votes = [...activity.votes].reverse();
+        setActivities(prev => [...votes, ...prev].slice(0, 10));
       }
     };
 
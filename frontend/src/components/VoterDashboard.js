@@ -96,10 +96,13 @@ function VoterDashboard() {
     setLoading(true);
     try {
       // Use the registered wallet address from session
+      // Vote in the election the listed candidates belong to
+      const candidate = candidates.find((c) => c.id === candidateId);
       const response = await voterAPI.castVote(
         user.mobileNumber,
         candidateId,
-        registeredWallet
+        registeredWallet,
+        candidate ? candidate.electionId : undefined
       );
 
       if (response.data.success) {